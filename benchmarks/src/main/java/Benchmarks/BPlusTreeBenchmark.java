@@ -0,0 +1,111 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import BPlusTree.BPlusTree;
+import BPlusTree.Eviction;
+import MappedTree.FixedWidthCodec;
+
+/**
+ * Point lookups, updates and short range scans on a disk-backed B+tree whose buffer pool holds a
+ * small share, a fifth, or all of its 2.8K pages. The pool's hit ratio and I/O counts for each
+ * iteration are printed to the run log.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class BPlusTreeBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+    private static final int SCAN = 100;
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"64", "512", "4096"})
+    public int poolPages;
+
+    @Param({"LRU", "CLOCK"})
+    public Eviction eviction;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    private BPlusTree<Long> tree;
+    private File file;
+    private Long[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("tree", ".bpt");
+        file.delete();
+        tree = BPlusTree.open(file.getPath(), FixedWidthCodec.LONG, Long::compare, BPlusTree.DEFAULT_PAGE_SIZE,
+                poolPages, eviction);
+        for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 42)) {
+            tree.insert(key);
+        }
+        tree.flush();
+        probes = KeyDistribution.box(distribution.probes(size, PROBES, 7));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStats() {
+        tree.getBufferPool().resetStats();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStats() {
+        System.out.println(tree.getBufferPool());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        tree.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public boolean search() throws IOException {
+        return tree.search(probes[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean insertDelete() throws IOException {
+        Long key = probes[cursor++ & MASK] + 1;
+        tree.insert(key);
+        return tree.delete(key);
+    }
+
+    @Benchmark
+    public void scan(Blackhole bh) {
+        int left = SCAN;
+        for (Long key : tree.tailSet(probes[cursor++ & MASK], true)) {
+            bh.consume(key);
+            if (--left == 0) {
+                break;
+            }
+        }
+    }
+}
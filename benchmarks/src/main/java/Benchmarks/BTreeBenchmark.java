@@ -0,0 +1,139 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import AVL.LongAVL;
+import BTree.BTree;
+import BTree.LongBTree;
+import BTree.NodeSearch;
+import RBTree.LongRBTree;
+import RBTree.RBTree;
+
+/**
+ * Random searches on B-trees of several fanouts against the binary trees, by tree size, to find
+ * where the B-tree's fewer cache misses overtake the binary trees' fewer comparisons. Every
+ * method probes the same present keys; the binary baselines do not depend on fanout, so they
+ * live in their own state and are only run once per size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class BTreeBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+
+    @State(Scope.Thread)
+    public static class Probes {
+        long[] keys;
+        Long[] boxed;
+        int cursor;
+
+        void init(int size) {
+            keys = KeyDistribution.UNIFORM.probes(size, PROBES, 7);
+            boxed = KeyDistribution.box(keys);
+        }
+
+        int next() {
+            return cursor++ & MASK;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Binary extends Probes {
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int size;
+
+        AVL<Long> avl;
+        RBTree<Long> rbTree;
+        LongAVL longAVL;
+        LongRBTree longRBTree;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            avl = new AVL<>();
+            rbTree = new RBTree<>();
+            longAVL = new LongAVL();
+            longRBTree = new LongRBTree();
+            for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 42)) {
+                avl.insert(key);
+                rbTree.insert(key);
+                longAVL.insert(key);
+                longRBTree.insert(key);
+            }
+            init(size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Blocked extends Probes {
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int size;
+
+        @Param({"8", "32", "128"})
+        public int fanout;
+
+        @Param({"LINEAR", "BINARY"})
+        public NodeSearch nodeSearch;
+
+        BTree<Long> bTree;
+        LongBTree longBTree;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            bTree = new BTree<>(fanout, nodeSearch, null);
+            longBTree = new LongBTree(fanout, nodeSearch);
+            for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 42)) {
+                bTree.insert(key);
+                longBTree.insert(key);
+            }
+            init(size);
+        }
+    }
+
+    @Benchmark
+    public boolean avl(Binary state) {
+        return state.avl.search(state.boxed[state.next()]);
+    }
+
+    @Benchmark
+    public boolean rbTree(Binary state) {
+        return state.rbTree.search(state.boxed[state.next()]);
+    }
+
+    @Benchmark
+    public boolean bTree(Blocked state) {
+        return state.bTree.search(state.boxed[state.next()]);
+    }
+
+    @Benchmark
+    public boolean longAVL(Binary state) {
+        return state.longAVL.search(state.keys[state.next()]);
+    }
+
+    @Benchmark
+    public boolean longRBTree(Binary state) {
+        return state.longRBTree.search(state.keys[state.next()]);
+    }
+
+    @Benchmark
+    public boolean longBTree(Blocked state) {
+        return state.longBTree.search(state.keys[state.next()]);
+    }
+}
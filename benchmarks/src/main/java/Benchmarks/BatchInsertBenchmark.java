@@ -0,0 +1,73 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import RBTree.RBTree;
+
+/**
+ * {@code RBTree.insertAll} against inserting the same batch one key at a time into a tree that
+ * already holds {@code size} keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class BatchInsertBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"1000", "100000", "1000000"})
+    public int batch;
+
+    private Object[] existing;
+    private List<Long> keys;
+    private RBTree<Long> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        existing = KeyDistribution.box(KeyDistribution.SORTED.insertionOrder(size, 0));
+        long[] odd = KeyDistribution.UNIFORM.insertionOrder(batch, 42);
+        Long[] boxed = new Long[batch];
+        for (int i = 0; i < batch; ++i) {
+            boxed[i] = odd[i] + 1;
+        }
+        keys = Arrays.asList(boxed);
+    }
+
+    @Setup(Level.Invocation)
+    public void rebuild() {
+        tree = RBTree.fromSorted(existing);
+    }
+
+    @Benchmark
+    public RBTree<Long> insertAll() {
+        tree.insertAll(keys);
+        return tree;
+    }
+
+    @Benchmark
+    public RBTree<Long> insertEach() {
+        for (Long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,76 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the benchmarks matching a regex with the GC profiler attached and writes every result to
+ * one JSON file. {@link ConcurrentBenchmark} is run once per thread count.
+ *
+ * Usage: BenchmarkRunner [include-regex] [results.json]
+ */
+public class BenchmarkRunner {
+
+    private static final int[] THREADS = {1, 4, 16, 32};
+
+    public static void main(String[] args) throws RunnerException, FileNotFoundException {
+        String include = args.length > 0 ? args[0] : ".*";
+        String results = args.length > 1 ? args[1] : "results.json";
+
+        List<RunResult> all = new ArrayList<>();
+        String concurrent = ConcurrentBenchmark.class.getName();
+        all.addAll(run(base(include).exclude(concurrent)));
+        Pattern pattern = Pattern.compile(include);
+        for (Method method : ConcurrentBenchmark.class.getMethods()) {
+            if (method.isAnnotationPresent(Benchmark.class) && pattern.matcher(concurrent + "." + method.getName()).find()) {
+                for (int threads : THREADS) {
+                    all.addAll(run(base(concurrent + "\\." + method.getName() + "$").threads(threads)));
+                }
+            }
+        }
+
+        if (all.isEmpty()) {
+            throw new RunnerException("No benchmarks match " + include);
+        }
+
+        File parent = new File(results).getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (PrintStream out = new PrintStream(results)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(all);
+        }
+    }
+
+    private static ChainedOptionsBuilder base(String include) {
+        return new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(false);
+    }
+
+    private static Collection<RunResult> run(ChainedOptionsBuilder options) throws RunnerException {
+        try {
+            return new Runner(options.build()).run();
+        } catch (NoBenchmarksException e) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import RBTree.ConcurrentRBTree;
+import RBTree.RBTree;
+
+/**
+ * ConcurrentRBTree against an RBTree behind one global lock, at several read/write mixes. The
+ * thread count is set per run; {@link BenchmarkRunner} sweeps 1, 4, 16 and 32 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ConcurrentBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"1000000"})
+        public int size;
+
+        @Param({"99", "90", "50"})
+        public int readPercent;
+
+        ConcurrentRBTree<Long> concurrent;
+        RBTree<Long> locked;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            concurrent = new ConcurrentRBTree<>();
+            locked = new RBTree<>();
+            for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 42)) {
+                concurrent.insert(key);
+                locked.insert(key);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Local {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    public boolean stampedLock(Shared shared, Local local) {
+        Long key = 2L * local.random.nextInt(shared.size);
+        if (local.random.nextInt(100) < shared.readPercent) {
+            return shared.concurrent.search(key);
+        }
+        shared.concurrent.delete(key);
+        shared.concurrent.insert(key);
+        return true;
+    }
+
+    @Benchmark
+    public boolean globalLock(Shared shared, Local local) {
+        Long key = 2L * local.random.nextInt(shared.size);
+        boolean read = local.random.nextInt(100) < shared.readPercent;
+        synchronized (shared.locked) {
+            if (read) {
+                return shared.locked.search(key);
+            }
+            shared.locked.delete(key);
+            shared.locked.insert(key);
+            return true;
+        }
+    }
+}
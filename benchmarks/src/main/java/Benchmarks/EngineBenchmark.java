@@ -0,0 +1,64 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-object RBTree against the struct-of-arrays ArrayRBTree under a steady mix of lookups and
+ * replacements. Compare the GC profiler's gc.count and gc.time between the two engines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class EngineBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+
+    @Param({"RBTREE", "ARRAY_RBTREE"})
+    public TreeKind tree;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private TreeKind.Tree<Long> target;
+    private Long[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = tree.create();
+        for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 42)) {
+            target.insert(key);
+        }
+        probes = KeyDistribution.box(KeyDistribution.UNIFORM.probes(size, PROBES, 7));
+    }
+
+    @Benchmark
+    public boolean search() {
+        return target.search(probes[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean deleteInsert() {
+        Long key = probes[cursor++ & MASK];
+        target.delete(key);
+        target.insert(key);
+        return true;
+    }
+}
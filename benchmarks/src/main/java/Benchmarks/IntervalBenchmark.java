@@ -0,0 +1,108 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import RBTree.Interval;
+import RBTree.IntervalTree;
+
+/**
+ * Overlap and stabbing queries on the interval tree against a scan of its sorted list, which is
+ * what callers did before. Intervals start uniformly over [0, 10^9); most are short, one in a
+ * hundred is up to a thousand times longer. Stabbing queries do not depend on the window width,
+ * so it lives in its own state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class IntervalBenchmark {
+
+    private static final long SPAN = 1_000_000_000L;
+    private static final int QUERIES = 1024;
+
+    @Param({"1000000"})
+    public int size;
+
+    @State(Scope.Thread)
+    public static class Window {
+        @Param({"1000", "100000"})
+        public long width;
+    }
+
+    private IntervalTree<Long> tree;
+    private List<Interval<Long>> sorted;
+    private long[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        tree = new IntervalTree<>();
+        for (int i = 0; i < size; ++i) {
+            long lo = (long) (random.nextDouble() * SPAN);
+            long length = random.nextInt(100) == 0 ? random.nextInt(1_000_000) : random.nextInt(1_000);
+            tree.insert(lo, lo + length);
+        }
+        sorted = tree.toSortedList();
+        queries = new long[QUERIES];
+        for (int i = 0; i < QUERIES; ++i) {
+            queries[i] = (long) (random.nextDouble() * SPAN);
+        }
+    }
+
+    private long nextQuery() {
+        long lo = queries[next];
+        next = (next + 1) % QUERIES;
+        return lo;
+    }
+
+    @Benchmark
+    public void treeOverlapping(Window window, Blackhole bh) {
+        long lo = nextQuery();
+        tree.overlapping(lo, lo + window.width, bh::consume);
+    }
+
+    @Benchmark
+    public void scanOverlapping(Window window, Blackhole bh) {
+        long lo = nextQuery();
+        long hi = lo + window.width;
+        for (Interval<Long> interval : sorted) {
+            if (interval.getLo() <= hi && interval.getHi() >= lo) {
+                bh.consume(interval);
+            }
+        }
+    }
+
+    @Benchmark
+    public void treeContaining(Blackhole bh) {
+        tree.containing(nextQuery(), bh::consume);
+    }
+
+    @Benchmark
+    public void scanContaining(Blackhole bh) {
+        long point = nextQuery();
+        for (Interval<Long> interval : sorted) {
+            if (interval.getLo() <= point && interval.getHi() >= point) {
+                bh.consume(interval);
+            }
+        }
+    }
+}
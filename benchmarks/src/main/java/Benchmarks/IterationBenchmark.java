@@ -0,0 +1,133 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import RBTree.RBTree;
+
+/**
+ * Full scans through the iterator, the spliterator and a cursor, ascending finger seeks, plus the
+ * order-statistic queries that replace scans on the AVL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class IterationBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private AVL<Long> avl;
+    private RBTree<Long> rbTree;
+    private Long lo;
+    private Long hi;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object[] sorted = KeyDistribution.box(KeyDistribution.SORTED.insertionOrder(size, 0));
+        avl = AVL.fromSorted(sorted);
+        rbTree = RBTree.fromSorted(sorted);
+        lo = 2L * (size / 4);
+        hi = 2L * (3 * (size / 4));
+    }
+
+    @Benchmark
+    public void avlIterator(Blackhole bh) {
+        for (Long key : avl) {
+            bh.consume(key);
+        }
+    }
+
+    @Benchmark
+    public void rbTreeIterator(Blackhole bh) {
+        for (Long key : rbTree) {
+            bh.consume(key);
+        }
+    }
+
+    @Benchmark
+    public void avlCursor(Blackhole bh) {
+        AVL<Long>.Cursor cursor = avl.cursor();
+        for (boolean more = cursor.first(); more; more = cursor.next()) {
+            bh.consume(cursor.get());
+        }
+    }
+
+    @Benchmark
+    public void rbTreeCursor(Blackhole bh) {
+        RBTree<Long>.Cursor cursor = rbTree.cursor();
+        for (boolean more = cursor.first(); more; more = cursor.next()) {
+            bh.consume(cursor.get());
+        }
+    }
+
+    /**
+     * Seeks every 16th key in ascending order from the previous position.
+     */
+    @Benchmark
+    public void avlFingerSeek(Blackhole bh) {
+        AVL<Long>.Cursor cursor = avl.cursor();
+        for (long key = 0; key < 2L * size; key += 32) {
+            bh.consume(cursor.seek(key));
+        }
+    }
+
+    @Benchmark
+    public void rbTreeFingerSeek(Blackhole bh) {
+        RBTree<Long>.Cursor cursor = rbTree.cursor();
+        for (long key = 0; key < 2L * size; key += 32) {
+            bh.consume(cursor.seek(key));
+        }
+    }
+
+    @Benchmark
+    public void avlSearchAscending(Blackhole bh) {
+        for (long key = 0; key < 2L * size; key += 32) {
+            bh.consume(avl.search(key));
+        }
+    }
+
+    @Benchmark
+    public long avlParallelSum() {
+        return avl.parallelStream().mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public long rbTreeParallelSum() {
+        return rbTree.parallelStream().mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int avlCountInRange() {
+        return avl.countInRange(lo, hi);
+    }
+
+    @Benchmark
+    public int rbTreeCountInRange() {
+        return rbTree.subSet(lo, true, hi, true).count();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Long avlSelectMedian() {
+        return avl.select(size / 2);
+    }
+}
@@ -0,0 +1,113 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import BinarySearchTree.KeyCodec;
+import BinarySearchTree.SortedKeyFile;
+import Journal.FsyncPolicy;
+import Journal.WriteAheadLog;
+
+/**
+ * Cost of making one update durable: a journaled AVL update under each fsync policy, against
+ * rewriting every key the way a full save does. The journaled update includes the amortized cost
+ * of the checkpoints the journal triggers; the log is also checkpointed after every iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class JournalBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+
+    @State(Scope.Thread)
+    public static class Journaled {
+        @Param({"1000000"})
+        public int size;
+
+        @Param({"ALWAYS", "INTERVAL", "NEVER"})
+        public FsyncPolicy policy;
+
+        AVL<Long> tree;
+        WriteAheadLog<Long> journal;
+        File directory;
+        Long[] probes;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            tree = AVL.fromSorted(KeyDistribution.box(KeyDistribution.SORTED.insertionOrder(size, 0)));
+            directory = Files.createTempDirectory("journal").toFile();
+            journal = WriteAheadLog.open(directory.getPath(), KeyCodec.LONG, policy);
+            tree.setJournal(journal);
+            probes = KeyDistribution.box(KeyDistribution.UNIFORM.probes(size, PROBES, 7));
+        }
+
+        @TearDown(Level.Iteration)
+        public void checkpoint() {
+            tree.checkpoint();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Snapshot {
+        @Param({"1000000"})
+        public int size;
+
+        AVL<Long> tree;
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            tree = AVL.fromSorted(KeyDistribution.box(KeyDistribution.SORTED.insertionOrder(size, 0)));
+            file = File.createTempFile("tree", ".keys");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public boolean journaledUpdate(Journaled state) {
+        Long key = state.probes[state.cursor++ & MASK];
+        state.tree.delete(key);
+        state.tree.insert(key);
+        return true;
+    }
+
+    @Benchmark
+    public long fullRewrite(Snapshot state) throws IOException {
+        return SortedKeyFile.write(state.file.getPath(), state.tree.iterator(), KeyCodec.LONG);
+    }
+}
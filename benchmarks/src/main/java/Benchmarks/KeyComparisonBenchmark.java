@@ -0,0 +1,113 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and updates with keys whose comparison is expensive: Strings sharing a long prefix and a
+ * three-field composite key. The cost per operation tracks comparisons per visited node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class KeyComparisonBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+
+    @Param({"BST", "AVL", "RBTREE"})
+    public TreeKind tree;
+
+    @Param({"STRING", "COMPOSITE"})
+    public String keyType;
+
+    @Param({"100000"})
+    public int size;
+
+    private TreeKind.Tree<Comparable> target;
+    private Comparable[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = (TreeKind.Tree) tree.create();
+        for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 42)) {
+            target.insert(key(key));
+        }
+        long[] keys = KeyDistribution.UNIFORM.probes(size, PROBES, 7);
+        probes = new Comparable[PROBES];
+        for (int i = 0; i < PROBES; ++i) {
+            probes[i] = key(keys[i]);
+        }
+    }
+
+    private Comparable key(long value) {
+        if (keyType.equals("STRING")) {
+            return String.format("tenant/eu-west-1/orders/%012d", value);
+        }
+        return new CompositeKey("eu-west-1", (int) (value % 16), value);
+    }
+
+    @Benchmark
+    public boolean searchHit() {
+        return target.search(probes[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean deleteInsert() {
+        Comparable key = probes[cursor++ & MASK];
+        target.delete(key);
+        target.insert(key);
+        return true;
+    }
+
+    static final class CompositeKey implements Comparable<CompositeKey> {
+        private final String region;
+        private final int shard;
+        private final long id;
+
+        CompositeKey(String region, int shard, long id) {
+            this.region = region;
+            this.shard = shard;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CompositeKey other) {
+            int c = region.compareTo(other.region);
+            if (c != 0) {
+                return c;
+            }
+            c = Integer.compare(shard, other.shard);
+            if (c != 0) {
+                return c;
+            }
+            return Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CompositeKey && compareTo((CompositeKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package Benchmarks;
+
+import java.util.Random;
+
+/**
+ * Key sets and probe sequences for the benchmarks. Keys are the even numbers 0, 2, ..., 2(n - 1),
+ * so odd numbers are guaranteed misses. The distribution decides both the insertion order and the
+ * order in which keys are probed.
+ */
+public enum KeyDistribution {
+    UNIFORM, SORTED, REVERSED, ZIPFIAN;
+
+    private static final double ZIPF_THETA = 0.99;
+
+    public long[] insertionOrder(int n, long seed) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; ++i) {
+            keys[i] = 2L * i;
+        }
+        if (this == REVERSED) {
+            for (int i = 0, j = n - 1; i < j; ++i, --j) {
+                long tmp = keys[i];
+                keys[i] = keys[j];
+                keys[j] = tmp;
+            }
+        } else if (this != SORTED) {
+            shuffle(keys, new Random(seed));
+        }
+        return keys;
+    }
+
+    public long[] probes(int n, int count, long seed) {
+        Random random = new Random(seed);
+        long[] probes = new long[count];
+        switch (this) {
+            case SORTED:
+                for (int i = 0; i < count; ++i) {
+                    probes[i] = 2L * (i % n);
+                }
+                break;
+            case REVERSED:
+                for (int i = 0; i < count; ++i) {
+                    probes[i] = 2L * (n - 1 - i % n);
+                }
+                break;
+            case UNIFORM:
+                for (int i = 0; i < count; ++i) {
+                    probes[i] = 2L * random.nextInt(n);
+                }
+                break;
+            case ZIPFIAN:
+                Zipfian zipfian = new Zipfian(n, ZIPF_THETA);
+                for (int i = 0; i < count; ++i) {
+                    // Scramble ranks so the hot keys are spread over the tree, not clustered at the minimum.
+                    long rank = zipfian.next(random);
+                    probes[i] = 2L * Math.floorMod(rank * 0x9E3779B97F4A7C15L, (long) n);
+                }
+                break;
+        }
+        return probes;
+    }
+
+    static void shuffle(long[] keys, Random random) {
+        for (int i = keys.length - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            long tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+    }
+
+    public static Long[] box(long[] keys) {
+        Long[] boxed = new Long[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            boxed[i] = keys[i];
+        }
+        return boxed;
+    }
+
+    /**
+     * Zipfian rank generator over [0, n) after Gray et al., "Quickly Generating Billion-Record
+     * Synthetic Databases", as used by YCSB.
+     */
+    private static final class Zipfian {
+        private final int n;
+        private final double theta;
+        private final double alpha;
+        private final double zetan;
+        private final double eta;
+
+        Zipfian(int n, double theta) {
+            this.n = n;
+            this.theta = theta;
+            this.alpha = 1.0 / (1.0 - theta);
+            this.zetan = zeta(n, theta);
+            double zeta2 = zeta(2, theta);
+            this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetan);
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; ++i) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        long next(Random random) {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return Math.min(1, n - 1);
+            }
+            return Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+}
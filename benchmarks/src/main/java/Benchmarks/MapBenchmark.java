@@ -0,0 +1,133 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVLMap;
+import RBTree.RBTreeMap;
+
+/**
+ * Counter updates ({@code merge(key, 1, Integer::sum)}) on the tree maps, against TreeMap and
+ * against a get followed by a put, which descends the tree twice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class MapBenchmark {
+
+    private static final int BATCH = 1024;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    private AVLMap<Long, Integer> avlMap;
+    private RBTreeMap<Long, Integer> rbTreeMap;
+    private TreeMap<Long, Integer> treeMap;
+    private Long[] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        avlMap = new AVLMap<>();
+        rbTreeMap = new RBTreeMap<>();
+        treeMap = new TreeMap<>();
+        for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 1)) {
+            avlMap.put(key, 0);
+            rbTreeMap.put(key, 0);
+            treeMap.put(key, 0);
+        }
+        // Odd probes miss, so a quarter of the merges insert a new key.
+        long[] keys = distribution.probes(size, 1 << 20, 2);
+        probes = new Long[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            probes[i] = (i & 3) == 0 ? keys[i] + 1 : keys[i];
+        }
+    }
+
+    private int nextBatch() {
+        int start = next;
+        next = (next + BATCH) & (probes.length - 1);
+        return start;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int avlMapMerge() {
+        int start = nextBatch();
+        int sum = 0;
+        for (int i = start; i < start + BATCH; ++i) {
+            sum += avlMap.merge(probes[i], 1, Integer::sum);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int avlMapGetThenPut() {
+        int start = nextBatch();
+        int sum = 0;
+        for (int i = start; i < start + BATCH; ++i) {
+            Integer count = avlMap.get(probes[i]);
+            int updated = count == null ? 1 : count + 1;
+            avlMap.put(probes[i], updated);
+            sum += updated;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int rbTreeMapMerge() {
+        int start = nextBatch();
+        int sum = 0;
+        for (int i = start; i < start + BATCH; ++i) {
+            sum += rbTreeMap.merge(probes[i], 1, Integer::sum);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int rbTreeMapGetThenPut() {
+        int start = nextBatch();
+        int sum = 0;
+        for (int i = start; i < start + BATCH; ++i) {
+            Integer count = rbTreeMap.get(probes[i]);
+            int updated = count == null ? 1 : count + 1;
+            rbTreeMap.put(probes[i], updated);
+            sum += updated;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int treeMapMerge() {
+        int start = nextBatch();
+        int sum = 0;
+        for (int i = start; i < start + BATCH; ++i) {
+            sum += treeMap.merge(probes[i], 1, Integer::sum);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,74 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import RBTree.RBTree;
+
+/**
+ * Builds a tree from one million heavily duplicated keys, drawn Zipfian from {@code distinct}
+ * values: the plain RBTree keeps a node per copy, the multiset trees a node per distinct key.
+ * Each build is followed by a count of the hottest key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class MultisetBenchmark {
+
+    private static final int EVENTS = 1_000_000;
+
+    @Param({"1000", "100000"})
+    public int distinct;
+
+    private Long[] events;
+    private Long hottest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        events = KeyDistribution.box(KeyDistribution.ZIPFIAN.probes(distinct, EVENTS, 11));
+        hottest = events[0];
+    }
+
+    @Benchmark
+    public int rbTree() {
+        RBTree<Long> tree = new RBTree<>();
+        for (Long key : events) {
+            tree.insert(key);
+        }
+        return tree.count(hottest);
+    }
+
+    @Benchmark
+    public int rbTreeMultiset() {
+        RBTree<Long> tree = RBTree.multiset();
+        for (Long key : events) {
+            tree.insert(key);
+        }
+        return tree.count(hottest);
+    }
+
+    @Benchmark
+    public int avlMultiset() {
+        AVL<Long> tree = AVL.multiset();
+        for (Long key : events) {
+            tree.insert(key);
+        }
+        return tree.count(hottest);
+    }
+}
@@ -0,0 +1,95 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import RBTree.RBTree;
+
+/**
+ * Building a tree from an unsorted array with duplicates: one insert per key against
+ * {@code fromUnsorted} on pools of increasing parallelism. Only meaningful on a machine with at
+ * least as many cores as the largest pool. The single-threaded baselines do not depend on the
+ * pool, so it lives in its own state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx16g"})
+public class ParallelBuildBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+        @Param({"1", "2", "4", "8", "16", "32"})
+        public int parallelism;
+
+        ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    private Long[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // About a third of the keys are duplicates.
+        keys = KeyDistribution.box(KeyDistribution.UNIFORM.probes(size, size, 42));
+    }
+
+    @Benchmark
+    public AVL<Long> avlFromUnsorted(Pool pool) {
+        return AVL.fromUnsorted(null, keys, pool.pool);
+    }
+
+    @Benchmark
+    public RBTree<Long> rbTreeFromUnsorted(Pool pool) {
+        return RBTree.fromUnsorted(null, keys, pool.pool);
+    }
+
+    @Benchmark
+    public AVL<Long> avlInsertEach() {
+        AVL<Long> tree = new AVL<>();
+        for (Long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public RBTree<Long> rbTreeInsertEach() {
+        RBTree<Long> tree = new RBTree<>();
+        for (Long key : keys) {
+            if (!tree.search(key)) {
+                tree.insert(key);
+            }
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,70 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import AVL.PersistentAVL;
+
+/**
+ * Cost of producing a new version after one update: path copying in PersistentAVL against copying
+ * the whole mutable AVL. gc.alloc.rate.norm gives the bytes allocated per update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class PersistentBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private PersistentAVL<Long> persistent;
+    private AVL<Long> mutable;
+    private Long[] misses;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        persistent = PersistentAVL.empty();
+        mutable = new AVL<>();
+        for (long key : KeyDistribution.UNIFORM.insertionOrder(size, 42)) {
+            persistent = persistent.insert(key);
+            mutable.insert(key);
+        }
+        long[] probes = KeyDistribution.UNIFORM.probes(size, PROBES, 7);
+        misses = new Long[PROBES];
+        for (int i = 0; i < PROBES; ++i) {
+            misses[i] = probes[i] + 1;
+        }
+    }
+
+    @Benchmark
+    public PersistentAVL<Long> pathCopy() {
+        return persistent.insert(misses[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public AVL<Long> fullCopy() {
+        AVL<Long> copy = AVL.fromSorted(mutable.toSortedArray());
+        copy.insert(misses[cursor++ & MASK]);
+        return copy;
+    }
+}
@@ -0,0 +1,80 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import AVL.LongAVL;
+import RBTree.LongRBTree;
+import RBTree.RBTree;
+
+/**
+ * Building a tree of n long keys with the generic classes against the primitive ones. Run with the
+ * GC profiler; gc.alloc.rate.norm divided by {@code size} is the allocation per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class PrimitiveBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private long[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = KeyDistribution.UNIFORM.insertionOrder(size, 42);
+    }
+
+    @Benchmark
+    public AVL<Long> genericAVL() {
+        AVL<Long> tree = new AVL<>();
+        for (long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public LongAVL longAVL() {
+        LongAVL tree = new LongAVL();
+        for (long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public RBTree<Long> genericRBTree() {
+        RBTree<Long> tree = new RBTree<>();
+        for (long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public LongRBTree longRBTree() {
+        LongRBTree tree = new LongRBTree();
+        for (long key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+}
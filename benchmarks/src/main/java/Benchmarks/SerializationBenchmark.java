@@ -0,0 +1,102 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import BinarySearchTree.BST;
+import BinarySearchTree.KeyCodec;
+import MappedTree.FixedWidthCodec;
+import MappedTree.MappedTreeView;
+
+/**
+ * Saving and loading a BST of Long keys in steps of 3: Java serialization against the sorted key
+ * file with delta varints, and opening a memory-mapped snapshot against either full load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class SerializationBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private Object[] sorted;
+    private BST<Long> tree;
+    private File serialized;
+    private File keyFile;
+    private File snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sorted = new Object[size];
+        for (int i = 0; i < size; ++i) {
+            sorted[i] = 3L * i;
+        }
+        serialized = File.createTempFile("tree", ".ser");
+        keyFile = File.createTempFile("tree", ".keys");
+        snapshot = File.createTempFile("tree", ".eyt");
+        BST.<Long>fromSorted(sorted).writeToFile(serialized.getPath());
+        BST.<Long>fromSorted(sorted).writeToFile(keyFile.getPath(), KeyCodec.DELTA_LONG);
+        MappedTreeView.write(snapshot.getPath(), sorted, FixedWidthCodec.LONG);
+    }
+
+    /** Both write paths clear the tree, so every write gets a fresh one. */
+    @Setup(Level.Invocation)
+    public void rebuild() {
+        tree = BST.fromSorted(sorted);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serialized.delete();
+        keyFile.delete();
+        snapshot.delete();
+    }
+
+    @Benchmark
+    public void writeSerialized() {
+        tree.writeToFile(serialized.getPath());
+    }
+
+    @Benchmark
+    public void writeKeyFile() {
+        tree.writeToFile(keyFile.getPath(), KeyCodec.DELTA_LONG);
+    }
+
+    @Benchmark
+    public BST<Long> readSerialized() {
+        BST<Long> loaded = new BST<>();
+        loaded.readFromFile(serialized.getPath());
+        return loaded;
+    }
+
+    @Benchmark
+    public BST<Long> readKeyFile() {
+        BST<Long> loaded = new BST<>();
+        loaded.readFromFile(keyFile.getPath(), KeyCodec.DELTA_LONG);
+        return loaded;
+    }
+
+    @Benchmark
+    public boolean openSnapshot() throws IOException {
+        return MappedTreeView.open(snapshot.getPath(), FixedWidthCodec.LONG).search(3L * (size / 2));
+    }
+}
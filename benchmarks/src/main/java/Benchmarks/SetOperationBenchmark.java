@@ -0,0 +1,89 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import RBTree.RBTree;
+
+/**
+ * Union of two overlapping trees with the common pool against a single-threaded pool. The set
+ * operations consume their inputs, so both inputs are rebuilt before every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class SetOperationBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private Object[] evens;
+    private Object[] thirds;
+    private ForkJoinPool single;
+    private AVL<Long> avlA;
+    private AVL<Long> avlB;
+    private RBTree<Long> rbA;
+    private RBTree<Long> rbB;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        evens = new Object[size];
+        thirds = new Object[size];
+        for (int i = 0; i < size; ++i) {
+            evens[i] = 2L * i;
+            thirds[i] = 3L * i;
+        }
+        single = new ForkJoinPool(1);
+    }
+
+    @Setup(Level.Invocation)
+    public void rebuild() {
+        avlA = AVL.fromSorted(evens);
+        avlB = AVL.fromSorted(thirds);
+        rbA = RBTree.fromSorted(evens);
+        rbB = RBTree.fromSorted(thirds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        single.shutdown();
+    }
+
+    @Benchmark
+    public AVL<Long> avlParallel() {
+        return AVL.setOperation(AVL.SetOperation.UNION, avlA, avlB, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public AVL<Long> avlSingleThread() {
+        return AVL.setOperation(AVL.SetOperation.UNION, avlA, avlB, single);
+    }
+
+    @Benchmark
+    public RBTree<Long> rbTreeParallel() {
+        return RBTree.setOperation(RBTree.SetOperation.UNION, rbA, rbB, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public RBTree<Long> rbTreeSingleThread() {
+        return RBTree.setOperation(RBTree.SetOperation.UNION, rbA, rbB, single);
+    }
+}
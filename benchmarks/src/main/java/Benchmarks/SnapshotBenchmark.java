@@ -0,0 +1,80 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import MappedTree.FixedWidthCodec;
+import MappedTree.MappedTreeView;
+
+/**
+ * Lookups in a memory-mapped Eytzinger snapshot against the same keys in a heap AVL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class SnapshotBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+
+    @Param({"100000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    private MappedTreeView<Long> view;
+    private AVL<Long> heap;
+    private File snapshot;
+    private Long[] probes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Object[] sorted = KeyDistribution.box(KeyDistribution.SORTED.insertionOrder(size, 0));
+        snapshot = File.createTempFile("tree", ".eyt");
+        MappedTreeView.write(snapshot.getPath(), sorted, FixedWidthCodec.LONG);
+        view = MappedTreeView.open(snapshot.getPath(), FixedWidthCodec.LONG);
+        heap = AVL.fromSorted(sorted);
+        probes = KeyDistribution.box(distribution.probes(size, PROBES, 7));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        snapshot.delete();
+    }
+
+    @Benchmark
+    public boolean mappedSearch() {
+        return view.search(probes[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean heapSearch() {
+        return heap.search(probes[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public Long mappedSuccessor() {
+        return view.getSuccessorData(probes[cursor++ & MASK]);
+    }
+}
@@ -0,0 +1,74 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import AVL.AVL;
+import BinarySearchTree.BST;
+import RBTree.RBTree;
+
+/**
+ * Building a whole tree, one insert per key against {@code fromSorted} on the same keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class TreeBuildBenchmark {
+
+    @Param({"BST", "AVL", "RBTREE", "BTREE"})
+    public TreeKind tree;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "SORTED", "REVERSED", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    private Long[] keys;
+    private Object[] sorted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TreeKind.checkFeasible(tree, distribution, size);
+        keys = KeyDistribution.box(distribution.insertionOrder(size, 42));
+        sorted = keys.clone();
+        Arrays.sort(sorted);
+    }
+
+    @Benchmark
+    public TreeKind.Tree<Long> insertEach() {
+        TreeKind.Tree<Long> target = tree.create();
+        for (Long key : keys) {
+            target.insert(key);
+        }
+        return target;
+    }
+
+    @Benchmark
+    public Object fromSorted() {
+        switch (tree) {
+            case AVL:
+                return AVL.fromSorted(sorted);
+            case RBTREE:
+                return RBTree.fromSorted(sorted);
+            default:
+                return BST.fromSorted(sorted);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package Benchmarks;
+
+import AVL.AVL;
+import BTree.BTree;
+import BinarySearchTree.BST;
+import RBTree.ArrayRBTree;
+import RBTree.RBTree;
+
+import java.util.Iterator;
+
+/**
+ * The trees under test behind one interface, so every benchmark can be parameterized by tree.
+ */
+public enum TreeKind {
+    BST {
+        @Override
+        public <K extends Comparable<K>> Tree<K> create() {
+            BST<K> tree = new BST<>();
+            return new Tree<>() {
+                public void insert(K key) {
+                    tree.insert(key);
+                }
+
+                public boolean search(K key) {
+                    return tree.search(key);
+                }
+
+                public void delete(K key) {
+                    tree.delete(key);
+                }
+
+                public K min() {
+                    return tree.findMinData();
+                }
+
+                public K max() {
+                    return tree.findMaxData();
+                }
+
+                public K successor(K key) {
+                    return tree.getSuccessorData(key);
+                }
+
+                public Object[] toSortedArray() {
+                    return tree.toSortedArray();
+                }
+            };
+        }
+    },
+    AVL {
+        @Override
+        public <K extends Comparable<K>> Tree<K> create() {
+            AVL<K> tree = new AVL<>();
+            return new Tree<>() {
+                public void insert(K key) {
+                    tree.insert(key);
+                }
+
+                public boolean search(K key) {
+                    return tree.search(key);
+                }
+
+                public void delete(K key) {
+                    tree.delete(key);
+                }
+
+                public K min() {
+                    return tree.findMinData();
+                }
+
+                public K max() {
+                    return tree.findMaxData();
+                }
+
+                public K successor(K key) {
+                    Iterator<K> it = tree.tailSet(key, false).iterator();
+                    return it.hasNext() ? it.next() : null;
+                }
+
+                public Object[] toSortedArray() {
+                    return tree.toSortedArray();
+                }
+            };
+        }
+    },
+    RBTREE {
+        @Override
+        public <K extends Comparable<K>> Tree<K> create() {
+            RBTree<K> tree = new RBTree<>();
+            return new Tree<>() {
+                public void insert(K key) {
+                    tree.insert(key);
+                }
+
+                public boolean search(K key) {
+                    return tree.search(key);
+                }
+
+                public void delete(K key) {
+                    tree.delete(key);
+                }
+
+                public K min() {
+                    return tree.iterator().next();
+                }
+
+                public K max() {
+                    return tree.tailSet(tree.iterator().next(), true).descending().iterator().next();
+                }
+
+                public K successor(K key) {
+                    Iterator<K> it = tree.tailSet(key, false).iterator();
+                    return it.hasNext() ? it.next() : null;
+                }
+
+                public Object[] toSortedArray() {
+                    return tree.toSortedArray();
+                }
+            };
+        }
+    },
+    BTREE {
+        @Override
+        public <K extends Comparable<K>> Tree<K> create() {
+            BTree<K> tree = new BTree<>();
+            return new Tree<>() {
+                public void insert(K key) {
+                    tree.insert(key);
+                }
+
+                public boolean search(K key) {
+                    return tree.search(key);
+                }
+
+                public void delete(K key) {
+                    tree.delete(key);
+                }
+
+                public K min() {
+                    return tree.findMinData();
+                }
+
+                public K max() {
+                    return tree.findMaxData();
+                }
+
+                public K successor(K key) {
+                    Iterator<K> it = tree.tailSet(key, false).iterator();
+                    return it.hasNext() ? it.next() : null;
+                }
+
+                public Object[] toSortedArray() {
+                    return tree.toSortedArray();
+                }
+            };
+        }
+    },
+    ARRAY_RBTREE {
+        @Override
+        public <K extends Comparable<K>> Tree<K> create() {
+            ArrayRBTree<K> tree = new ArrayRBTree<>();
+            return new Tree<>() {
+                public void insert(K key) {
+                    tree.insert(key);
+                }
+
+                public boolean search(K key) {
+                    return tree.search(key);
+                }
+
+                public void delete(K key) {
+                    tree.delete(key);
+                }
+
+                public K min() {
+                    return tree.iterator().next();
+                }
+
+                public K max() {
+                    return tree.tailSet(tree.iterator().next(), true).descending().iterator().next();
+                }
+
+                public K successor(K key) {
+                    Iterator<K> it = tree.tailSet(key, false).iterator();
+                    return it.hasNext() ? it.next() : null;
+                }
+
+                public Object[] toSortedArray() {
+                    return tree.toSortedArray();
+                }
+            };
+        }
+    };
+
+    public abstract <K extends Comparable<K>> Tree<K> create();
+
+    public interface Tree<K> {
+        void insert(K key);
+
+        boolean search(K key);
+
+        void delete(K key);
+
+        K min();
+
+        K max();
+
+        K successor(K key);
+
+        Object[] toSortedArray();
+    }
+
+    /**
+     * An unbalanced BST fed sorted or reversed keys degenerates into a list and needs O(n^2) work to build,
+     * so those combinations are rejected above this size instead of running for hours.
+     */
+    static void checkFeasible(TreeKind kind, KeyDistribution distribution, int size) {
+        if (kind == BST && (distribution == KeyDistribution.SORTED || distribution == KeyDistribution.REVERSED)
+                && size > 100_000) {
+            throw new IllegalStateException("BST with ordered input is quadratic; skipped above 100000 keys");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation cost of the core API on a pre-built tree. Every probe array is pre-boxed so the
+ * measurement is the tree, not {@code Long.valueOf}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class TreeOperationsBenchmark {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MASK = PROBES - 1;
+
+    @Param({"BST", "AVL", "RBTREE", "BTREE"})
+    public TreeKind tree;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "SORTED", "REVERSED", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    private TreeKind.Tree<Long> target;
+    private Long[] hits;
+    private Long[] misses;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TreeKind.checkFeasible(tree, distribution, size);
+        target = tree.create();
+        for (long key : distribution.insertionOrder(size, 42)) {
+            target.insert(key);
+        }
+        long[] probes = distribution.probes(size, PROBES, 7);
+        hits = KeyDistribution.box(probes);
+        misses = new Long[PROBES];
+        for (int i = 0; i < PROBES; ++i) {
+            misses[i] = probes[i] + 1;
+        }
+    }
+
+    private int next() {
+        return cursor++ & MASK;
+    }
+
+    @Benchmark
+    public boolean searchHit() {
+        return target.search(hits[next()]);
+    }
+
+    @Benchmark
+    public boolean searchMiss() {
+        return target.search(misses[next()]);
+    }
+
+    @Benchmark
+    public boolean deleteInsert() {
+        Long key = hits[next()];
+        target.delete(key);
+        target.insert(key);
+        return true;
+    }
+
+    @Benchmark
+    public Long min() {
+        return target.min();
+    }
+
+    @Benchmark
+    public Long max() {
+        return target.max();
+    }
+
+    @Benchmark
+    public Long successor() {
+        return target.successor(hits[next()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object[] toSortedArray() {
+        return target.toSortedArray();
+    }
+}
@@ -1,18 +1,203 @@
 package AVL;
 
+import Journal.WriteAheadLog;
+import MappedTree.FixedWidthCodec;
+import MappedTree.MappedTreeView;
+import Metrics.TreeListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class AVL<T extends Comparable<T>> implements Iterable<T> {
 
-public class AVL<T extends Comparable<T>> {
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
 
     private Node<T> root;
 
     private int nodesCount;
 
-    public AVL(){}
+    private final Comparator<? super T> cmp;
+
+    private final boolean multiset;
+
+    private TreeListener listener;
+    private WriteAheadLog<T> journal;
+    private int comparisons;
+    private int depth;
+    private int rotations;
+
+    public AVL(){
+        this(null, false);
+    }
+
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public AVL(Comparator<? super T> cmp) {
+        this(cmp, false);
+    }
+
+    private AVL(Comparator<? super T> cmp, boolean multiset) {
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+        this.multiset = multiset;
+    }
+
+    /**
+     * Returns an empty tree that keeps one node per distinct key with a count of its copies, so
+     * memory and height depend on the number of distinct keys only. Sizes, ranks and iteration
+     * count every copy.
+     */
+    public static <T extends Comparable<T>> AVL<T> multiset() {
+        return new AVL<T>(null, true);
+    }
+
+    public static <T extends Comparable<T>> AVL<T> multiset(Comparator<? super T> cmp) {
+        return new AVL<T>(cmp, true);
+    }
+
+    public boolean isMultiset() {
+        return multiset;
+    }
 
     public AVL(T root) {
-        this.root = new Node<>(root, 1);
+        this();
+        this.root = new Node<>(root);
+        this.nodesCount = 1;
+    }
+
+    public static <T extends Comparable<T>> AVL<T> fromSorted(Object[] sorted) {
+        return fromSorted(null, sorted);
+    }
+
+    public static <T extends Comparable<T>> AVL<T> fromSorted(Comparator<? super T> cmp, Object[] sorted) {
+        AVL<T> tree = new AVL<T>(cmp);
+        for (int i = 1; i < sorted.length; ++i) {
+            if (tree.cmp.compare((T) sorted[i - 1], (T) sorted[i]) >= 0) {
+                throw new IllegalArgumentException("Input is not sorted in strictly ascending order at index " + i);
+            }
+        }
+
+        tree.root = build(sorted, null, 0, sorted.length - 1);
+        tree.nodesCount = sorted.length;
+        return tree;
+    }
+
+    public static <T extends Comparable<T>> AVL<T> fromSorted(Iterator<? extends T> sorted) {
+        return fromSorted(null, sorted);
+    }
+
+    public static <T extends Comparable<T>> AVL<T> fromSorted(Comparator<? super T> cmp, Iterator<? extends T> sorted) {
+        List<Object> items = new ArrayList<>();
+        while (sorted.hasNext()) {
+            items.add(sorted.next());
+        }
+        return AVL.<T>fromSorted(cmp, items.toArray());
+    }
+
+    public static <T extends Comparable<T>> AVL<T> fromUnsorted(Collection<? extends T> items) {
+        return fromUnsorted(null, items.toArray(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds a tree of the distinct keys of {@code items}, which is left unchanged. A copy is
+     * sorted with {@link Arrays#parallelSort} inside {@code pool}, so its subtasks run there, and
+     * the tree is then linked bottom-up with subtrees of more than {@link #PARALLEL_THRESHOLD}
+     * keys built as separate tasks. Heights and sizes are assigned directly.
+     */
+    public static <T extends Comparable<T>> AVL<T> fromUnsorted(Comparator<? super T> cmp, Object[] items, ForkJoinPool pool) {
+        AVL<T> tree = new AVL<T>(cmp);
+        Object[] sorted = items.clone();
+        int count = pool.invoke(ForkJoinTask.adapt(() -> sortDistinct(sorted, tree.cmp)));
+        if (count > 0) {
+            tree.root = pool.invoke(new BuildTask<T>(sorted, 0, count - 1));
+        }
+        tree.nodesCount = count;
+        return tree;
+    }
+
+    /**
+     * Sorts {@code keys} and moves the distinct ones to its front. Returns how many there are.
+     */
+    private static <T> int sortDistinct(Object[] keys, Comparator<? super T> cmp) {
+        Arrays.parallelSort(keys, (Comparator<Object>) cmp);
+        int count = 0;
+        for (Object key : keys) {
+            if (count == 0 || cmp.compare((T) keys[count - 1], (T) key) != 0) {
+                keys[count++] = key;
+            }
+        }
+        return count;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class BuildTask<T> extends RecursiveTask<Node<T>> {
+        private final Object[] sorted;
+        private final int lo;
+        private final int hi;
+
+        BuildTask(Object[] sorted, int lo, int hi) {
+            this.sorted = sorted;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Node<T> compute() {
+            if (hi - lo < PARALLEL_THRESHOLD) {
+                return build(sorted, null, lo, hi);
+            }
+
+            int mid = (lo + hi) >>> 1;
+            BuildTask<T> leftTask = new BuildTask<>(sorted, lo, mid - 1);
+            leftTask.fork();
+            Node<T> right = new BuildTask<T>(sorted, mid + 1, hi).compute();
+            Node<T> left = leftTask.join();
+
+            Node<T> node = new Node<>((T) sorted[mid]);
+            node.left = left;
+            node.right = right;
+            node.height = Math.max(left.height, right.height) + 1;
+            node.size = left.size + right.size + 1;
+            return node;
+        }
+    }
+
+    /**
+     * Builds a balanced tree of the distinct keys {@code sorted}, with {@code counts} copies of
+     * each, or one when it is null.
+     */
+    private static <T> Node<T> build(Object[] sorted, int[] counts, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        Node<T> node = new Node<>((T) sorted[mid]);
+        node.left = build(sorted, counts, lo, mid - 1);
+        node.right = build(sorted, counts, mid + 1, hi);
+        node.height = Math.max(node.left == null ? -1 : node.left.height, node.right == null ? -1 : node.right.height) + 1;
+        if (counts != null) {
+            node.count = counts[mid];
+        }
+        node.size = (node.left == null ? 0 : node.left.size) + (node.right == null ? 0 : node.right.size) + node.count;
+        return node;
     }
 
     private static class Node<T> {
@@ -20,6 +205,8 @@ public class AVL<T extends Comparable<T>> {
         Node<T> left;
         Node<T> right;
         int height;
+        int size = 1;
+        int count = 1;
         Node(T item) {
             this.item = item;
         }
@@ -33,8 +220,122 @@ public class AVL<T extends Comparable<T>> {
         }
     }
 
+    /**
+     * Reports every insert, delete and search to {@code listener}, or stops reporting when it is
+     * null.
+     */
+    public void setListener(TreeListener listener) {
+        this.listener = listener;
+    }
+
+    private void resetCounters() {
+        comparisons = 0;
+        depth = 0;
+        rotations = 0;
+    }
+
+    private void report(TreeListener.Operation operation) {
+        TreeListener listener = this.listener;
+        if (listener != null) {
+            listener.onOperation(operation, comparisons, depth, rotations, 0, 0);
+        }
+    }
+
+    /**
+     * Appends every insert and delete that changes the tree to {@code journal}, or stops logging
+     * when it is null, and writes a {@linkplain #checkpoint() checkpoint} whenever the journal
+     * reports one due. A failed append throws {@link UncheckedIOException} after the tree has
+     * changed.
+     */
+    public void setJournal(WriteAheadLog<T> journal) {
+        this.journal = journal;
+    }
+
+    private void log(WriteAheadLog.Operation operation, T data) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(operation, data);
+            if (journal.isCheckpointDue()) {
+                journal.checkpoint(new SortedIterator());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the keys as the journal's new checkpoint, which empties its log. A failed write
+     * throws {@link UncheckedIOException}.
+     */
+    public void checkpoint() {
+        if (journal == null) {
+            throw new IllegalStateException("No journal set");
+        }
+        try {
+            journal.checkpoint(new SortedIterator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces the keys with the journal's checkpoint and the operations logged after it, then
+     * logs to {@code journal}. If reading the journal fails, the tree and its previous journal
+     * are left as they were and {@link UncheckedIOException} is thrown.
+     */
+    public void recover(WriteAheadLog<T> journal) {
+        Node<T> previousRoot = this.root;
+        int previousCount = this.nodesCount;
+        WriteAheadLog<T> previousJournal = this.journal;
+        this.journal = null;
+        boolean recovered = false;
+        try {
+            List<Object> keys = new ArrayList<>();
+            journal.readCheckpoint(keys::add);
+            int[] counts = null;
+            if (multiset) {
+                counts = new int[keys.size()];
+                int distinct = 0;
+                for (Object key : keys) {
+                    if (distinct == 0 || cmp.compare((T) keys.get(distinct - 1), (T) key) != 0) {
+                        keys.set(distinct++, key);
+                    }
+                    ++counts[distinct - 1];
+                }
+                keys.subList(distinct, keys.size()).clear();
+            }
+            this.root = build(keys.toArray(), counts, 0, keys.size() - 1);
+            this.nodesCount = size(root);
+            journal.replay((operation, key) -> {
+                if (operation == WriteAheadLog.Operation.INSERT) {
+                    insert(key);
+                } else {
+                    delete(key);
+                }
+            });
+            this.journal = journal;
+            recovered = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!recovered) {
+                this.root = previousRoot;
+                this.nodesCount = previousCount;
+                this.journal = previousJournal;
+            }
+        }
+    }
+
     public void insert(T data) {
+        int before = nodesCount;
+        resetCounters();
         this.root = this.insert(root, data);
+        report(TreeListener.Operation.INSERT);
+        if (nodesCount != before) {
+            log(WriteAheadLog.Operation.INSERT, data);
+        }
     }
 
     private Node<T> insert(Node<T> root, T data) {
@@ -43,76 +344,176 @@ public class AVL<T extends Comparable<T>> {
             return new Node<>(data);
         }
 
-        if (data.compareTo(root.item) > 0) {
+        ++depth;
+        ++comparisons;
+        int c = cmp.compare(data, root.item);
+        if (c > 0) {
             root.right = insert(root.right, data);
-        } else if (data.compareTo(root.item) < 0){
+        } else if (c < 0) {
             root.left = insert(root.left, data);
         } else {
+            if (multiset) {
+                ++root.count;
+                ++root.size;
+                ++this.nodesCount;
+            }
             return root;
         }
 
+        if (listener != null) {
+            rotations += rotationsNeeded(root);
+        }
         return reBalance(root);
     }
 
     private void preOrderTraversal() {
-        preOrderTraversal(root);
-    }
-
-    private void preOrderTraversal(Node<T> root){
-        if (root != null) {
-            System.out.print(root.item);
-            preOrderTraversal(root.left);
-            preOrderTraversal(root.right);
-        }
+        preOrder(item -> {
+            System.out.print(item);
+            return true;
+        });
     }
 
     public void inOrderTraversal() {
-        inOrderTraversal(root);
+        inOrder(AVL::print);
     }
 
-    private void inOrderTraversal(Node<T> root) {
-        if (root != null) {
-            inOrderTraversal(root.left);
-            System.out.println(root.item);
-            inOrderTraversal(root.right);
-        }
+    public void postOrderTraversal() {
+        postOrder(AVL::print);
+    }
 
+    public void levelOrderTraversal() {
+        levelOrder(AVL::print);
     }
 
-    public void postOrderTraversal() {
-        postOrderTraversal(root);
+    private static boolean print(Object item) {
+        System.out.println(item);
+        return true;
     }
 
-    private void postOrderTraversal(Node<T> root) {
-        if (root != null) {
-            postOrderTraversal(root.left);
-            postOrderTraversal(root.right);
-            System.out.println(root.item);
+    /**
+     * Passes the keys to {@code visitor} in pre-order until it returns false, and returns whether
+     * it saw every key. Iterative; the extra memory is O(height). Traversals follow the tree's
+     * shape, so in a multiset each distinct key is passed once.
+     */
+    public boolean preOrder(Predicate<? super T> visitor) {
+        if (root == null) {
+            return true;
         }
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            if (!visitor.test(node.item)) {
+                return false;
+            }
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+        }
+        return true;
     }
 
-    public void levelOrderTraversal() {
-        int height = getTreeHeight(root);
+    /**
+     * In-order counterpart of {@link #preOrder}.
+     */
+    public boolean inOrder(Predicate<? super T> visitor) {
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null || !stack.isEmpty()) {
+            for (; node != null; node = node.left) {
+                stack.push(node);
+            }
+            node = stack.pop();
+            if (!visitor.test(node.item)) {
+                return false;
+            }
+            node = node.right;
+        }
+        return true;
+    }
 
-        for (int i = 1; i <= height; ++i) {
-            printLevel(root, i);
+    /**
+     * Post-order counterpart of {@link #preOrder}.
+     */
+    public boolean postOrder(Predicate<? super T> visitor) {
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        Node<T> last = null;
+        while (node != null || !stack.isEmpty()) {
+            if (node != null) {
+                stack.push(node);
+                node = node.left;
+                continue;
+            }
+            Node<T> top = stack.peek();
+            if (top.right != null && top.right != last) {
+                node = top.right;
+            } else {
+                stack.pop();
+                if (!visitor.test(top.item)) {
+                    return false;
+                }
+                last = top;
+            }
         }
+        return true;
     }
 
-    private void printLevel(Node<T> root, int level) {
+    /**
+     * Level-order counterpart of {@link #preOrder}; the extra memory is O(width).
+     */
+    public boolean levelOrder(Predicate<? super T> visitor) {
         if (root == null) {
-            return;
+            return true;
         }
-
-        if (level == 1) {
-            System.out.println(root.item);
-        }  else {
-            printLevel(root.left, level - 1);
-            printLevel(root.right, level - 1);
+        ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node<T> node = queue.poll();
+            if (!visitor.test(node.item)) {
+                return false;
+            }
+            if (node.left != null) {
+                queue.add(node.left);
+            }
+            if (node.right != null) {
+                queue.add(node.right);
+            }
         }
+        return true;
     }
 
-
+    /**
+     * Passes the keys one level at a time, from the root down, until {@code visitor} returns
+     * false, and returns whether it saw every level. Costs O(n) in total, with O(width) extra
+     * memory.
+     */
+    public boolean levelOrderByLevel(Predicate<? super List<T>> visitor) {
+        ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        if (root != null) {
+            queue.add(root);
+        }
+        while (!queue.isEmpty()) {
+            List<T> level = new ArrayList<>(queue.size());
+            for (int i = queue.size(); i > 0; --i) {
+                Node<T> node = queue.poll();
+                level.add(node.item);
+                if (node.left != null) {
+                    queue.add(node.left);
+                }
+                if (node.right != null) {
+                    queue.add(node.right);
+                }
+            }
+            if (!visitor.test(level)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
     public boolean search(T data) {
         return search(data, root) != null;
@@ -120,15 +521,21 @@ public class AVL<T extends Comparable<T>> {
 
     private Node<T> search(T data, Node<T> root) {
         Node<T> node = root;
+        int comparisons = 0;
 
-        while (node != null && node.item != null && node.item != data ) {
-            if (data.compareTo(node.item) < 0) {
-                node = node.left;
-            }   else {
-                node = node.right;
+        while (node != null) {
+            ++comparisons;
+            int c = cmp.compare(data, node.item);
+            if (c == 0) {
+                break;
             }
+            node = c < 0 ? node.left : node.right;
         }
 
+        TreeListener listener = this.listener;
+        if (listener != null) {
+            listener.onOperation(TreeListener.Operation.SEARCH, comparisons, comparisons, 0, 0, 0);
+        }
         return node;
     }
 
@@ -155,43 +562,158 @@ public class AVL<T extends Comparable<T>> {
     }
 
     public boolean delete(T data) {
-        if (this.delete(data, root) == null ) {
-            return false;
-        }
+        return removeOne(data);
+    }
 
-        --this.nodesCount;
-        return true;
+    /**
+     * Removes one copy of {@code data} and returns whether there was one.
+     */
+    public boolean removeOne(T data) {
+        return delete(data, false) > 0;
+    }
+
+    /**
+     * Removes every copy of {@code data} and returns how many there were.
+     */
+    public int removeAll(T data) {
+        return delete(data, true);
+    }
+
+    /**
+     * Returns the number of copies of {@code data}: zero or one unless this is a multiset.
+     */
+    public int count(T data) {
+        Node<T> node = search(data, root);
+        return node == null ? 0 : node.count;
+    }
+
+    private int delete(T data, boolean all) {
+        int before = size(root);
+        resetCounters();
+        this.root = this.delete(data, root, all);
+        report(TreeListener.Operation.DELETE);
+        int removed = before - size(root);
+        this.nodesCount -= removed;
+        for (int i = 0; i < removed; ++i) {
+            log(WriteAheadLog.Operation.DELETE, data);
+        }
+        return removed;
     }
 
-    private Node<T> delete(T data, Node<T> root) {
+    /**
+     * Removes one copy of {@code data}, or its whole node if {@code all} is set.
+     */
+    private Node<T> delete(T data, Node<T> root, boolean all) {
         if (root == null) {
             return root;
         }
 
-        if (data.compareTo(root.item) > 0) {
-            root.right = delete(data, root.right);
-        } else if (data.compareTo(root.item) < 0) {
-            root.left = delete(data, root.left);
+        ++depth;
+        ++comparisons;
+        int c = cmp.compare(data, root.item);
+        if (c > 0) {
+            root.right = delete(data, root.right, all);
+        } else if (c < 0) {
+            root.left = delete(data, root.left, all);
+        } else if (!all && root.count > 1) {
+            --root.count;
+            --root.size;
+            return root;
         } else {
             if (root.left == null ) {
-                root = root.right;
+                return root.right;
             } else if (root.right == null) {
-                root = root.left;
+                return root.left;
             } else {
-                root.item =  this.findMinNode(root.right).item;
-                root.right = delete(root.item, root.right);
+                Node<T> successor = this.findMinNode(root.right);
+                root.item = successor.item;
+                root.count = successor.count;
+                root.right = delete(root.item, root.right, true);
             }
         }
 
-        if (root != null) {
-            reBalance(root);
+        if (listener != null) {
+            rotations += rotationsNeeded(root);
         }
-
-        return root;
+        return reBalance(root);
     }
 
     public void clear() {
         this.root = null;
+        this.nodesCount = 0;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the number of keys strictly less than {@code data}.
+     */
+    public int rank(T data) {
+        return countBelow(data, false);
+    }
+
+    /**
+     * Returns the key with the given zero-based rank.
+     */
+    public T select(int index) {
+        if (index < 0 || index >= size(root)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(root));
+        }
+
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index >= leftSize + node.count) {
+                index -= leftSize + node.count;
+                node = node.right;
+            } else {
+                return node.item;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys in the closed range [lo, hi].
+     */
+    public int countInRange(T lo, T hi) {
+        if (cmp.compare(lo, hi) > 0) {
+            return 0;
+        }
+        return countBelow(hi, true) - countBelow(lo, false);
+    }
+
+    /**
+     * Returns the nearest-rank percentile, e.g. {@code percentile(99)} for p99.
+     */
+    public T percentile(double percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Percentile out of range: " + percent);
+        }
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+
+        int index = (int) Math.ceil(percent / 100 * size(root)) - 1;
+        return select(Math.max(index, 0));
+    }
+
+    private int countBelow(T data, boolean inclusive) {
+        int count = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int c = cmp.compare(data, node.item);
+            if (c < 0 || (c == 0 && !inclusive)) {
+                node = node.left;
+            } else {
+                count += size(node.left) + node.count;
+                node = node.right;
+            }
+        }
+        return count;
     }
 
     public int getTreeHeight() {
@@ -209,12 +731,24 @@ public class AVL<T extends Comparable<T>> {
         return Math.max(left,right) + 1;
     }
 
+    private boolean naturalOrder() {
+        return cmp == Comparator.naturalOrder();
+    }
+
     private int height(Node<T> node) {
         return node == null ? -1 : node.height;
     }
 
     private void updateHeight(Node<T> node) {
-        node.height = Math.max(height(node.left), height(node.left)) + 1;
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    private int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private void updateSize(Node<T> node) {
+        node.size = size(node.left) + size(node.right) + node.count;
     }
 
     private int getBalance(Node<T> node) {
@@ -228,6 +762,8 @@ public class AVL<T extends Comparable<T>> {
         node.left = leaf;
         updateHeight(node);
         updateHeight(root);
+        updateSize(node);
+        updateSize(root);
         return root;
     }
 
@@ -238,12 +774,30 @@ public class AVL<T extends Comparable<T>> {
         node.right = leaf;
         updateHeight(node);
         updateHeight(root);
+        updateSize(node);
+        updateSize(root);
         return root;
     }
 
 
+    /**
+     * Rotations {@link #reBalance} is about to do on {@code node}. Counted here rather than in the
+     * rotations themselves because the parallel set operations rebalance from many threads.
+     */
+    private int rotationsNeeded(Node<T> node) {
+        int balanceFactor = getBalance(node);
+        if (balanceFactor > 1) {
+            return getBalance(node.right) >= 0 ? 1 : 2;
+        }
+        if (balanceFactor < -1) {
+            return getBalance(node.left) <= 0 ? 1 : 2;
+        }
+        return 0;
+    }
+
     private Node<T> reBalance(Node<T> node) {
         updateHeight(node);
+        updateSize(node);
         int balanceFactor = getBalance(node);
         if (balanceFactor > 1) {
             if (getBalance(node.right) >= 0) {
@@ -265,59 +819,701 @@ public class AVL<T extends Comparable<T>> {
         return node;
     }
 
+    public static final class Split<T extends Comparable<T>> {
+        public final AVL<T> left;
+        public final boolean found;
+        public final AVL<T> right;
+
+        private Split(AVL<T> left, boolean found, AVL<T> right) {
+            this.left = left;
+            this.found = found;
+            this.right = right;
+        }
+    }
+
+    private static final class Pieces<T> {
+        Node<T> left;
+        Node<T> right;
+        boolean found;
+    }
+
+    private AVL<T> wrap(Node<T> root) {
+        AVL<T> tree = new AVL<T>(cmp, multiset);
+        tree.root = root;
+        tree.nodesCount = tree.size(root);
+        return tree;
+    }
+
+    /**
+     * Splits this tree into the keys less than and greater than {@code key} in O(log n). This tree
+     * is left empty. A multiset splits into two multisets.
+     */
+    public Split<T> split(T key) {
+        Pieces<T> pieces = new Pieces<>();
+        split(root, key, pieces);
+        clear();
+        return new Split<>(wrap(pieces.left), pieces.found, wrap(pieces.right));
+    }
+
+    /**
+     * Joins {@code left}, {@code key} and {@code right} in O(|h(left) - h(right)|), where every key
+     * of {@code left} is less than {@code key} and every key of {@code right} is greater. Both
+     * trees must use the same comparator and are left empty.
+     */
+    public static <T extends Comparable<T>> AVL<T> join(AVL<T> left, T key, AVL<T> right) {
+        if (left.multiset || right.multiset) {
+            throw new UnsupportedOperationException("join is not defined for multisets");
+        }
+        if (!left.cmp.equals(right.cmp)) {
+            throw new IllegalArgumentException("Trees are ordered by different comparators");
+        }
+        if ((left.root != null && left.cmp.compare(left.findMaxData(), key) >= 0)
+                || (right.root != null && left.cmp.compare(right.findMinData(), key) <= 0)) {
+            throw new IllegalArgumentException("Keys are not ordered left < key < right");
+        }
+
+        Node<T> root = left.join(left.root, new Node<>(key), right.root);
+        left.clear();
+        right.clear();
+        return left.wrap(root);
+    }
+
+    public static <T extends Comparable<T>> AVL<T> union(AVL<T> a, AVL<T> b) {
+        return setOperation(SetOperation.UNION, a, b, ForkJoinPool.commonPool());
+    }
+
+    public static <T extends Comparable<T>> AVL<T> intersection(AVL<T> a, AVL<T> b) {
+        return setOperation(SetOperation.INTERSECTION, a, b, ForkJoinPool.commonPool());
+    }
+
+    public static <T extends Comparable<T>> AVL<T> difference(AVL<T> a, AVL<T> b) {
+        return setOperation(SetOperation.DIFFERENCE, a, b, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs {@code operation} on {@code a} and {@code b} in O(m log(n / m + 1)) work for sizes
+     * m <= n. Subproblems larger than {@link #PARALLEL_THRESHOLD} run in parallel on
+     * {@code pool}. Both inputs must use the same comparator; they are consumed and left empty,
+     * because their nodes are reused.
+     */
+    public static <T extends Comparable<T>> AVL<T> setOperation(SetOperation operation, AVL<T> a, AVL<T> b, ForkJoinPool pool) {
+        if (a.multiset || b.multiset) {
+            throw new UnsupportedOperationException(operation + " is not defined for multisets");
+        }
+        if (!a.cmp.equals(b.cmp)) {
+            throw new IllegalArgumentException("Trees are ordered by different comparators");
+        }
+        Node<T> root = pool.invoke(a.new SetTask(operation, a.root, b.root));
+        a.clear();
+        b.clear();
+        return a.wrap(root);
+    }
+
+    public enum SetOperation {
+        UNION, INTERSECTION, DIFFERENCE
+    }
+
+    @SuppressWarnings("serial")
+    private class SetTask extends RecursiveTask<Node<T>> {
+        private final SetOperation operation;
+        private final Node<T> first;
+        private final Node<T> second;
+
+        SetTask(SetOperation operation, Node<T> first, Node<T> second) {
+            this.operation = operation;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        protected Node<T> compute() {
+            if (first == null) {
+                return operation == SetOperation.UNION ? second : null;
+            }
+            if (second == null) {
+                return operation == SetOperation.INTERSECTION ? null : first;
+            }
+
+            Pieces<T> pieces = new Pieces<>();
+            Node<T> pivot;
+            Node<T> left;
+            Node<T> right;
+            SetTask leftTask;
+            SetTask rightTask;
+            if (operation == SetOperation.DIFFERENCE) {
+                pivot = second;
+                split(first, pivot.item, pieces);
+                leftTask = new SetTask(operation, pieces.left, pivot.left);
+                rightTask = new SetTask(operation, pieces.right, pivot.right);
+            } else {
+                pivot = first;
+                left = pivot.left;
+                right = pivot.right;
+                split(second, pivot.item, pieces);
+                leftTask = new SetTask(operation, left, pieces.left);
+                rightTask = new SetTask(operation, right, pieces.right);
+            }
+
+            if (size(first) + size(second) > PARALLEL_THRESHOLD) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+
+            if (operation == SetOperation.UNION || (operation == SetOperation.INTERSECTION && pieces.found)) {
+                return AVL.this.join(left, pivot, right);
+            }
+            return AVL.this.join(left, right);
+        }
+    }
+
+    private void split(Node<T> node, T key, Pieces<T> pieces) {
+        if (node == null) {
+            pieces.left = null;
+            pieces.right = null;
+            pieces.found = false;
+            return;
+        }
+
+        int c = cmp.compare(key, node.item);
+        if (c < 0) {
+            split(node.left, key, pieces);
+            pieces.right = join(pieces.right, node, node.right);
+        } else if (c > 0) {
+            split(node.right, key, pieces);
+            pieces.left = join(node.left, node, pieces.left);
+        } else {
+            pieces.left = node.left;
+            pieces.right = node.right;
+            pieces.found = true;
+        }
+    }
+
+    private Node<T> join(Node<T> left, Node<T> middle, Node<T> right) {
+        if (height(left) > height(right) + 1) {
+            return joinRight(left, middle, right);
+        }
+        if (height(right) > height(left) + 1) {
+            return joinLeft(left, middle, right);
+        }
+
+        middle.left = left;
+        middle.right = right;
+        updateHeight(middle);
+        updateSize(middle);
+        return middle;
+    }
+
+    private Node<T> joinRight(Node<T> left, Node<T> middle, Node<T> right) {
+        if (height(left.right) <= height(right) + 1) {
+            middle.left = left.right;
+            middle.right = right;
+            updateHeight(middle);
+            updateSize(middle);
+            left.right = middle;
+        } else {
+            left.right = joinRight(left.right, middle, right);
+        }
+        return reBalance(left);
+    }
+
+    private Node<T> joinLeft(Node<T> left, Node<T> middle, Node<T> right) {
+        if (height(right.left) <= height(left) + 1) {
+            middle.left = left;
+            middle.right = right.left;
+            updateHeight(middle);
+            updateSize(middle);
+            right.left = middle;
+        } else {
+            right.left = joinLeft(left, middle, right.left);
+        }
+        return reBalance(right);
+    }
+
+    private Node<T> join(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        Pieces<T> pieces = new Pieces<>();
+        splitLast(left, pieces);
+        return join(pieces.left, pieces.right, right);
+    }
+
+    private void splitLast(Node<T> node, Pieces<T> pieces) {
+        if (node.right == null) {
+            pieces.left = node.left;
+            pieces.right = node;
+            return;
+        }
+
+        splitLast(node.right, pieces);
+        pieces.left = join(node.left, node, pieces.left);
+    }
+
     public Object[] toSortedArray(){
         Object[] result = new Object[this.nodesCount];
-        Node<T> current = this.root;
         int index = 0;
-        while (current != null) {
-            if (current.left == null) {
-                result[index++] = current.item;
-                current = current.right;
-            } else {
-                Node<T> predecessor = current.left;
-                while (predecessor.right != null && predecessor.right != current) {
-                    predecessor = predecessor.right;
+        for (T item : this) {
+            result[index++] = item;
+        }
+
+        return result;
+    }
+
+    public List<T> toSortedList() {
+        List<T> list = new ArrayList<>(this.nodesCount);
+        for (T item : this) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new SortedIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new TreeSpliterator(root, null, nodesCount);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    public RangeView subSet(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+        if (cmp.compare(lo, hi) > 0) {
+            throw new IllegalArgumentException("lo > hi");
+        }
+        return new RangeView(lo, loInclusive, hi, hiInclusive, false);
+    }
+
+    public RangeView subSet(T lo, T hi) {
+        return subSet(lo, true, hi, false);
+    }
+
+    public RangeView headSet(T hi, boolean inclusive) {
+        return new RangeView(null, false, hi, inclusive, false);
+    }
+
+    public RangeView tailSet(T lo, boolean inclusive) {
+        return new RangeView(lo, inclusive, null, false, false);
+    }
+
+    /**
+     * Live view of the keys between two optional bounds. Iteration descends once to the first key
+     * in range and then walks in order, so a view over k keys costs O(log n + k).
+     */
+    public class RangeView implements Iterable<T> {
+        private final T lo;
+        private final boolean loInclusive;
+        private final T hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        private RangeView(T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending) {
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow(T item) {
+            if (lo == null) {
+                return false;
+            }
+            int c = cmp.compare(item, lo);
+            return c < 0 || (c == 0 && !loInclusive);
+        }
+
+        private boolean tooHigh(T item) {
+            if (hi == null) {
+                return false;
+            }
+            int c = cmp.compare(item, hi);
+            return c > 0 || (c == 0 && !hiInclusive);
+        }
+
+        public RangeView descending() {
+            return new RangeView(lo, loInclusive, hi, hiInclusive, !descending);
+        }
+
+        public int count() {
+            int below = lo == null ? 0 : countBelow(lo, !loInclusive);
+            int upTo = hi == null ? size(root) : countBelow(hi, hiInclusive);
+            return Math.max(upTo - below, 0);
+        }
+
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new RangeIterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+            if (!multiset) {
+                characteristics |= Spliterator.DISTINCT;
+            }
+            if (!descending && naturalOrder()) {
+                characteristics |= Spliterator.SORTED;
+            }
+            return Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+        }
+
+        public Stream<T> stream() {
+            return StreamSupport.stream(spliterator(), false);
+        }
+
+        private class RangeIterator implements Iterator<T> {
+            private final ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+            private Node<T> next;
+            private int repeat;
+
+            RangeIterator() {
+                push(root);
+                advance();
+            }
+
+            private void push(Node<T> node) {
+                while (node != null) {
+                    if (descending ? tooHigh(node.item) : tooLow(node.item)) {
+                        node = descending ? node.left : node.right;
+                    } else {
+                        stack.push(node);
+                        node = descending ? node.right : node.left;
+                    }
                 }
+            }
 
-                if (predecessor.right == null) {
-                    predecessor.right = current;
-                    current = current.left;
-                } else {
-                    predecessor.right = null;
-                    result[index++] = current.item;
-                    current = current.right;
+            private void advance() {
+                next = stack.poll();
+                if (next == null) {
+                    return;
                 }
+                repeat = next.count;
+                if (descending ? tooLow(next.item) : tooHigh(next.item)) {
+                    next = null;
+                    stack.clear();
+                    return;
+                }
+                push(descending ? next.left : next.right);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T item = next.item;
+                if (--repeat == 0) {
+                    advance();
+                }
+                return item;
             }
         }
+    }
 
-        return result;
+    public Cursor cursor() {
+        return new Cursor();
     }
 
-    public List<T> toSortedList() {
-        List<T> list = new ArrayList<>();
-        Node<T> current = this.root;
-        while (current != null) {
-            if (current.left == null) {
-                list.add(current.item);
-                current = current.right;
+    /**
+     * Movable position in the tree. The cursor keeps the path from the root, so {@link #next()}
+     * and {@link #previous()} cost O(1) amortized, and {@link #seek(Comparable)} starts from the
+     * current position, climbing only as far as the key requires before descending. A cursor
+     * starts unpositioned; any modification of the tree invalidates it. In a multiset the cursor
+     * visits each distinct key once; {@link AVL#count(Comparable)} gives its copies.
+     */
+    public class Cursor {
+        private Node<T>[] path = new Node[16];
+        private int top = -1;
+
+        private Cursor() { }
+
+        private void push(Node<T> node) {
+            if (++top == path.length) {
+                path = Arrays.copyOf(path, 2 * path.length);
+            }
+            path[top] = node;
+        }
+
+        private void pushLeft(Node<T> node) {
+            for (; node != null; node = node.left) {
+                push(node);
+            }
+        }
+
+        private void pushRight(Node<T> node) {
+            for (; node != null; node = node.right) {
+                push(node);
+            }
+        }
+
+        public boolean isPositioned() {
+            return top >= 0;
+        }
+
+        public T get() {
+            if (top < 0) {
+                throw new NoSuchElementException();
+            }
+            return path[top].item;
+        }
+
+        public boolean first() {
+            top = -1;
+            pushLeft(root);
+            return top >= 0;
+        }
+
+        public boolean last() {
+            top = -1;
+            pushRight(root);
+            return top >= 0;
+        }
+
+        /**
+         * Moves to the next key, or leaves the cursor unpositioned and returns false at the end.
+         */
+        public boolean next() {
+            if (top < 0) {
+                throw new NoSuchElementException();
+            }
+            if (path[top].right != null) {
+                pushLeft(path[top].right);
+                return true;
+            }
+            while (top > 0 && path[top - 1].right == path[top]) {
+                --top;
+            }
+            return --top >= 0;
+        }
+
+        /**
+         * Moves to the previous key, or leaves the cursor unpositioned and returns false at the start.
+         */
+        public boolean previous() {
+            if (top < 0) {
+                throw new NoSuchElementException();
+            }
+            if (path[top].left != null) {
+                pushRight(path[top].left);
+                return true;
+            }
+            while (top > 0 && path[top - 1].left == path[top]) {
+                --top;
+            }
+            return --top >= 0;
+        }
+
+        /**
+         * Moves to the first key not less than {@code key} and returns whether it equals
+         * {@code key}. When every key is less, the cursor is left unpositioned. From a
+         * positioned cursor the search climbs only to the lowest ancestor whose subtree can hold
+         * the answer, so seeking a nearby key touches few nodes.
+         */
+        public boolean seek(T key) {
+            if (top < 0) {
+                if (root == null) {
+                    return false;
+                }
+                push(root);
             } else {
-                Node<T> predecessor = current.left;
-                while (predecessor.right != null && predecessor.right != current) {
-                    predecessor = predecessor.right;
+                int c = cmp.compare(key, path[top].item);
+                if (c == 0) {
+                    return true;
                 }
+                while (top > 0) {
+                    Node<T> parent = path[top - 1];
+                    if ((c < 0) == (parent.right == path[top])) {
+                        int p = cmp.compare(key, parent.item);
+                        if (p == 0) {
+                            --top;
+                            return true;
+                        }
+                        if ((p < 0) != (c < 0)) {
+                            break;
+                        }
+                    }
+                    --top;
+                }
+            }
 
-                if (predecessor.right == null) {
-                    predecessor.right = current;
-                    current = current.left;
-                } else {
-                    predecessor.right = null;
-                    list.add(current.item);
-                    current = current.right;
+            while (true) {
+                Node<T> node = path[top];
+                int c = cmp.compare(key, node.item);
+                if (c == 0) {
+                    return true;
                 }
+                Node<T> child = c < 0 ? node.left : node.right;
+                if (child == null) {
+                    if (c > 0) {
+                        while (top > 0 && path[top - 1].right == path[top]) {
+                            --top;
+                        }
+                        --top;
+                    }
+                    return false;
+                }
+                push(child);
             }
         }
-        return list;
     }
 
+    private class SortedIterator implements Iterator<T> {
+        private final ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        private Node<T> current;
+        private int repeat;
+
+        SortedIterator() {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return repeat > 0 || !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (repeat > 0) {
+                --repeat;
+                return current.item;
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = stack.pop();
+            pushLeft(node.right);
+            current = node;
+            repeat = node.count - 1;
+            return node.item;
+        }
+    }
+
+    /**
+     * Walks {@code subtree} in order and then {@code last}. Splitting hands the left subtree and
+     * its root to a new spliterator and keeps the right subtree.
+     */
+    private class TreeSpliterator implements Spliterator<T> {
+        private Node<T> subtree;
+        private Node<T> last;
+        private ArrayDeque<Node<T>> stack;
+        private Node<T> current;
+        private int repeat;
+        private long estimate;
+
+        TreeSpliterator(Node<T> subtree, Node<T> last, long estimate) {
+            this.subtree = subtree;
+            this.last = last;
+            this.estimate = estimate;
+        }
+
+        private void pushLeft(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (stack == null) {
+                stack = new ArrayDeque<>();
+                pushLeft(subtree);
+                subtree = null;
+            }
+            if (repeat > 0) {
+                --repeat;
+                action.accept(current.item);
+                return true;
+            }
+
+            Node<T> node;
+            if (!stack.isEmpty()) {
+                node = stack.pop();
+                pushLeft(node.right);
+            } else if (last != null) {
+                node = last;
+                last = null;
+            } else {
+                return false;
+            }
+
+            current = node;
+            repeat = node.count - 1;
+            action.accept(node.item);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Node<T> node = subtree;
+            if (stack != null || node == null || (node.left == null && node.right == null)) {
+                return null;
+            }
+
+            estimate >>>= 1;
+            subtree = node.right;
+            return new TreeSpliterator(node.left, node, estimate);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return multiset ? ORDERED | SORTED | NONNULL : ORDERED | SORTED | DISTINCT | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return naturalOrder() ? null : cmp;
+        }
+    }
+
+    /**
+     * Writes the keys as a file that {@link MappedTreeView} can map. A failed write throws
+     * {@link UncheckedIOException}, so a partial snapshot is never mistaken for a complete one.
+     */
+    public void writeSnapshot(String filePath, FixedWidthCodec<T> codec) {
+        try {
+            MappedTreeView.write(filePath, toSortedArray(), codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
 }
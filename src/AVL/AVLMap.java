@@ -0,0 +1,346 @@
+package AVL;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Sorted map on an AVL tree. Values live in the nodes, and every update (put, remove, merge, ...)
+ * finds or creates its node in a single descent. Null keys and values are not supported.
+ */
+public class AVLMap<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+
+    private final Comparator<? super K> cmp;
+
+    private Node<K, V> root;
+
+    private int nodesCount;
+
+    private V previous;
+
+    private V current;
+
+    private boolean resized;
+
+    public AVLMap() {
+        this(null);
+    }
+
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public AVLMap(Comparator<? super K> cmp) {
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+    }
+
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        final K key;
+        V value;
+        Node<K, V> left;
+        Node<K, V> right;
+        int height;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = Objects.requireNonNull(value);
+            return old;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    public V get(K key) {
+        Node<K, V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    public V getOrDefault(K key, V defaultValue) {
+        Node<K, V> node = find(key);
+        return node == null ? defaultValue : node.value;
+    }
+
+    public boolean containsKey(K key) {
+        return find(key) != null;
+    }
+
+    private Node<K, V> find(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int c = cmp.compare(key, node.key);
+            if (c == 0) {
+                return node;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the previous value of {@code key}, or null if it was absent.
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        update(key, (k, old) -> value);
+        return previous;
+    }
+
+    /**
+     * Returns the current value of {@code key}, or null if it was absent and {@code value} was stored.
+     */
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        update(key, (k, old) -> old != null ? old : value);
+        return previous;
+    }
+
+    /**
+     * Returns the removed value, or null if {@code key} was absent.
+     */
+    public V remove(K key) {
+        update(key, (k, old) -> null);
+        return previous;
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mapping) {
+        Objects.requireNonNull(mapping);
+        return update(key, (k, old) -> old != null ? old : mapping.apply(k));
+    }
+
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Objects.requireNonNull(remapping);
+        return update(key, (k, old) -> old != null ? remapping.apply(k, old) : null);
+    }
+
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return update(key, Objects.requireNonNull(remapping));
+    }
+
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remapping);
+        return update(key, (k, old) -> old != null ? remapping.apply(old, value) : value);
+    }
+
+    /**
+     * Replaces the value of {@code key} with {@code remapping(key, old)}, where old is null when the
+     * key is absent; a null result removes the key. Leaves the old value in {@link #previous} and
+     * returns the new one.
+     */
+    private V update(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        previous = null;
+        current = null;
+        resized = false;
+        root = update(root, key, remapping);
+        return current;
+    }
+
+    private Node<K, V> update(Node<K, V> node, K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (node == null) {
+            V value = remapping.apply(key, null);
+            if (value == null) {
+                return null;
+            }
+            current = value;
+            resized = true;
+            ++nodesCount;
+            return new Node<>(key, value);
+        }
+
+        int c = cmp.compare(key, node.key);
+        if (c < 0) {
+            Node<K, V> left = update(node.left, key, remapping);
+            if (!resized) {
+                return node;
+            }
+            node.left = left;
+        } else if (c > 0) {
+            Node<K, V> right = update(node.right, key, remapping);
+            if (!resized) {
+                return node;
+            }
+            node.right = right;
+        } else {
+            previous = node.value;
+            V value = remapping.apply(key, node.value);
+            if (value != null) {
+                current = value;
+                node.value = value;
+                return node;
+            }
+            resized = true;
+            --nodesCount;
+            if (node.left == null) {
+                return node.right;
+            } else if (node.right == null) {
+                return node.left;
+            }
+            Node<K, V> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+
+        return reBalance(node);
+    }
+
+    private Node<K, V> deleteMin(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return reBalance(node);
+    }
+
+    public K firstKey() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node<K, V> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.key;
+    }
+
+    public K lastKey() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node<K, V> node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.key;
+    }
+
+    public int size() {
+        return this.nodesCount;
+    }
+
+    public boolean isEmpty() {
+        return this.nodesCount == 0;
+    }
+
+    public void clear() {
+        this.root = null;
+        this.nodesCount = 0;
+    }
+
+    public int getTreeHeight() {
+        return height(root) + 1;
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            private final ArrayDeque<Node<K, V>> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node<K, V> node) {
+                for (; node != null; node = node.left) {
+                    stack.push(node);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<K, V> node = stack.pop();
+                pushLeft(node.right);
+                return node;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<K, V> entry : this) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(entry);
+        }
+        return sb.append('}').toString();
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? -1 : node.height;
+    }
+
+    private static void updateHeight(Node<?, ?> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    private static <K, V> Node<K, V> rotateRight(Node<K, V> node) {
+        Node<K, V> root = node.left;
+        node.left = root.right;
+        root.right = node;
+        updateHeight(node);
+        updateHeight(root);
+        return root;
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(Node<K, V> node) {
+        Node<K, V> root = node.right;
+        node.right = root.left;
+        root.left = node;
+        updateHeight(node);
+        updateHeight(root);
+        return root;
+    }
+
+    private static <K, V> Node<K, V> reBalance(Node<K, V> node) {
+        updateHeight(node);
+        int balanceFactor = height(node.right) - height(node.left);
+        if (balanceFactor > 1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            node = rotateLeft(node);
+        } else if (balanceFactor < -1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            node = rotateRight(node);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,206 @@
+package AVL;
+
+import java.util.NoSuchElementException;
+
+public class IntAVL {
+
+    private Node root;
+
+    private int nodesCount;
+
+    private boolean deleted;
+
+    public IntAVL() {}
+
+    private static final class Node {
+        final int item;
+        Node left;
+        Node right;
+        int height;
+
+        Node(int item) {
+            this.item = item;
+        }
+    }
+
+    public void insert(int data) {
+        this.root = insert(root, data);
+    }
+
+    private Node insert(Node root, int data) {
+        if (root == null) {
+            ++this.nodesCount;
+            return new Node(data);
+        }
+
+        if (data > root.item) {
+            root.right = insert(root.right, data);
+        } else if (data < root.item) {
+            root.left = insert(root.left, data);
+        } else {
+            return root;
+        }
+
+        return reBalance(root);
+    }
+
+    public boolean search(int data) {
+        Node node = root;
+        while (node != null) {
+            if (data < node.item) {
+                node = node.left;
+            } else if (data > node.item) {
+                node = node.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int findMinData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.item;
+    }
+
+    public int findMaxData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.item;
+    }
+
+    public boolean delete(int data) {
+        this.deleted = false;
+        this.root = delete(data, root);
+        if (!this.deleted) {
+            return false;
+        }
+
+        --this.nodesCount;
+        return true;
+    }
+
+    private Node delete(int data, Node root) {
+        if (root == null) {
+            return null;
+        }
+
+        if (data > root.item) {
+            root.right = delete(data, root.right);
+        } else if (data < root.item) {
+            root.left = delete(data, root.left);
+        } else {
+            this.deleted = true;
+            if (root.left == null) {
+                return root.right;
+            } else if (root.right == null) {
+                return root.left;
+            } else {
+                Node successor = root.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                successor.right = deleteMin(root.right);
+                successor.left = root.left;
+                root = successor;
+            }
+        }
+
+        return reBalance(root);
+    }
+
+    private Node deleteMin(Node root) {
+        if (root.left == null) {
+            return root.right;
+        }
+        root.left = deleteMin(root.left);
+        return reBalance(root);
+    }
+
+    public int size() {
+        return this.nodesCount;
+    }
+
+    public void clear() {
+        this.root = null;
+        this.nodesCount = 0;
+    }
+
+    public int getTreeHeight() {
+        return height(root) + 1;
+    }
+
+    private static int height(Node node) {
+        return node == null ? -1 : node.height;
+    }
+
+    private static void updateHeight(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node root = node.left;
+        node.left = root.right;
+        root.right = node;
+        updateHeight(node);
+        updateHeight(root);
+        return root;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node root = node.right;
+        node.right = root.left;
+        root.left = node;
+        updateHeight(node);
+        updateHeight(root);
+        return root;
+    }
+
+    private static Node reBalance(Node node) {
+        updateHeight(node);
+        int balanceFactor = height(node.right) - height(node.left);
+        if (balanceFactor > 1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            node = rotateLeft(node);
+        } else if (balanceFactor < -1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            node = rotateRight(node);
+        }
+
+        return node;
+    }
+
+    public int[] toSortedArray() {
+        int[] result = new int[this.nodesCount];
+        Node[] stack = new Node[height(root) + 1];
+        int top = 0;
+        int index = 0;
+        Node node = root;
+        while (node != null || top > 0) {
+            while (node != null) {
+                stack[top++] = node;
+                node = node.left;
+            }
+            node = stack[--top];
+            result[index++] = node.item;
+            node = node.right;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,265 @@
+package AVL;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable AVL tree. {@link #insert} and {@link #delete} copy only the nodes on the search path
+ * and return a new version that shares every other subtree with this one, so old versions stay
+ * valid and can be read from any thread without locking.
+ */
+public final class PersistentAVL<T extends Comparable<T>> implements Iterable<T> {
+
+    private static final PersistentAVL<?> EMPTY = new PersistentAVL<>(null);
+
+    private final Node<T> root;
+
+    private PersistentAVL(Node<T> root) {
+        this.root = root;
+    }
+
+    public static <T extends Comparable<T>> PersistentAVL<T> empty() {
+        return (PersistentAVL<T>) EMPTY;
+    }
+
+    private static final class Node<T> {
+        final T item;
+        final Node<T> left;
+        final Node<T> right;
+        final int height;
+        final int size;
+
+        Node(Node<T> left, T item, Node<T> right) {
+            this.item = item;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? -1 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    public PersistentAVL<T> insert(T data) {
+        Node<T> newRoot = insert(root, data);
+        return newRoot == root ? this : new PersistentAVL<>(newRoot);
+    }
+
+    private static <T extends Comparable<T>> Node<T> insert(Node<T> node, T data) {
+        if (node == null) {
+            return new Node<>(null, data, null);
+        }
+
+        int c = data.compareTo(node.item);
+        if (c < 0) {
+            Node<T> left = insert(node.left, data);
+            return left == node.left ? node : balance(left, node.item, node.right);
+        } else if (c > 0) {
+            Node<T> right = insert(node.right, data);
+            return right == node.right ? node : balance(node.left, node.item, right);
+        }
+        return node;
+    }
+
+    public PersistentAVL<T> delete(T data) {
+        Node<T> newRoot = delete(root, data);
+        return newRoot == root ? this : new PersistentAVL<>(newRoot);
+    }
+
+    private static <T extends Comparable<T>> Node<T> delete(Node<T> node, T data) {
+        if (node == null) {
+            return null;
+        }
+
+        int c = data.compareTo(node.item);
+        if (c < 0) {
+            Node<T> left = delete(node.left, data);
+            return left == node.left ? node : balance(left, node.item, node.right);
+        } else if (c > 0) {
+            Node<T> right = delete(node.right, data);
+            return right == node.right ? node : balance(node.left, node.item, right);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        }
+        Node<T> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(node.left, successor.item, deleteMin(node.right));
+    }
+
+    private static <T> Node<T> deleteMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(deleteMin(node.left), node.item, node.right);
+    }
+
+    private static <T> Node<T> balance(Node<T> left, T item, Node<T> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.left, left.item, new Node<>(left.right, item, right));
+            }
+            Node<T> pivot = left.right;
+            return new Node<>(new Node<>(left.left, left.item, pivot.left), pivot.item, new Node<>(pivot.right, item, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(new Node<>(left, item, right.left), right.item, right.right);
+            }
+            Node<T> pivot = right.left;
+            return new Node<>(new Node<>(left, item, pivot.left), pivot.item, new Node<>(pivot.right, right.item, right.right));
+        }
+        return new Node<>(left, item, right);
+    }
+
+    public boolean search(T data) {
+        Node<T> node = root;
+        while (node != null) {
+            int c = data.compareTo(node.item);
+            if (c == 0) {
+                return true;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public T findMinData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node<T> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.item;
+    }
+
+    public T findMaxData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node<T> node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.item;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public int getTreeHeight() {
+        return height(root) + 1;
+    }
+
+    public T select(int index) {
+        if (index < 0 || index >= size(root)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(root));
+        }
+
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.item;
+            }
+        }
+    }
+
+    public int rank(T data) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (data.compareTo(node.item) <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    public List<T> toSortedList() {
+        List<T> list = new ArrayList<>(size(root));
+        for (T item : this) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private final ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node<T> node) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<T> node = stack.pop();
+                pushLeft(node.right);
+                return node.item;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size(root),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+}
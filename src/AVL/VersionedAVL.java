@@ -0,0 +1,44 @@
+package AVL;
+
+/**
+ * Mutable handle on a {@link PersistentAVL}. Writers are serialized and publish each new version
+ * through a volatile field; {@link #snapshot()} just reads that field, so readers get a consistent
+ * point-in-time view in O(1) without taking a lock.
+ */
+public class VersionedAVL<T extends Comparable<T>> {
+
+    private volatile PersistentAVL<T> current = PersistentAVL.empty();
+
+    public VersionedAVL() {}
+
+    public synchronized boolean insert(T data) {
+        PersistentAVL<T> next = current.insert(data);
+        if (next == current) {
+            return false;
+        }
+        current = next;
+        return true;
+    }
+
+    public synchronized boolean delete(T data) {
+        PersistentAVL<T> next = current.delete(data);
+        if (next == current) {
+            return false;
+        }
+        current = next;
+        return true;
+    }
+
+    public boolean search(T data) {
+        return current.search(data);
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    public PersistentAVL<T> snapshot() {
+        return current;
+    }
+
+}
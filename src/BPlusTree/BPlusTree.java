@@ -0,0 +1,554 @@
+package BPlusTree;
+
+import MappedTree.FixedWidthCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Disk-resident B+tree of fixed-width keys. The tree lives in one file of fixed-size pages: page 0
+ * is the header, every other page is a node. Keys are only stored in the leaves, which are chained
+ * left to right for range scans; internal nodes hold separators and child page numbers. Pages are
+ * read and written through a bounded {@link BufferPool}, so only the pages a query touches are in
+ * memory.
+ *
+ * Deletes remove the key from its leaf but never merge or free pages; the tree stays correct and
+ * a leaf that becomes empty is skipped by scans. The header and dirty pages reach the file on
+ * {@link #flush()} and {@link #close()}; a tree that is not closed may be left inconsistent.
+ * Not thread-safe.
+ */
+public final class BPlusTree<T> implements Iterable<T>, Closeable {
+    private static final int MAGIC = 0x42505431;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int NODE_HEADER = 16;
+    private static final byte LEAF = 0;
+    private static final byte INTERNAL = 1;
+    private static final long NO_PAGE = 0;
+
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private final BufferPool pool;
+    private final FixedWidthCodec<T> codec;
+    private final Comparator<? super T> cmp;
+    private final int width;
+    private final int leafCapacity;
+    private final int internalCapacity;
+    private final int internalKeys;
+
+    private long root;
+    private int height;
+    private long size;
+
+    private BPlusTree(FileChannel channel, FixedWidthCodec<T> codec, Comparator<? super T> cmp, int pageSize,
+                      int poolPages, Eviction eviction) throws IOException {
+        this.codec = codec;
+        this.cmp = cmp;
+        this.width = codec.width();
+        this.leafCapacity = (pageSize - NODE_HEADER) / width;
+        this.internalCapacity = (pageSize - NODE_HEADER - Long.BYTES) / (width + Long.BYTES);
+        this.internalKeys = NODE_HEADER + (internalCapacity + 1) * Long.BYTES;
+        if (pageSize < HEADER_SIZE || leafCapacity < 3 || internalCapacity < 3) {
+            throw new IllegalArgumentException("Page size " + pageSize + " is too small for keys of " + width + " bytes");
+        }
+        if (poolPages < 2) {
+            // A split pins the node being split and its new sibling at the same time.
+            throw new IllegalArgumentException("poolPages must be at least 2: " + poolPages);
+        }
+
+        if (channel.size() == 0) {
+            this.pool = new BufferPool(channel, pageSize, poolPages, eviction, 0);
+            pool.unpin(pool.allocate(), true);
+            BufferPool.Page leaf = pool.allocate();
+            leaf.buffer().put(0, LEAF);
+            pool.unpin(leaf, true);
+            this.root = leaf.id();
+            this.height = 1;
+            writeHeader();
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Not a B+tree file");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a B+tree file");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported B+tree version " + header.getInt(4));
+        }
+        if (header.getInt(8) != pageSize) {
+            throw new IOException("Page size " + header.getInt(8) + " does not match " + pageSize);
+        }
+        if (header.getInt(12) != width) {
+            throw new IOException("Key width " + header.getInt(12) + " does not match codec width " + width);
+        }
+        this.root = header.getLong(16);
+        this.size = header.getLong(24);
+        this.height = header.getInt(40);
+        this.pool = new BufferPool(channel, pageSize, poolPages, eviction, header.getLong(32));
+    }
+
+    public static <T extends Comparable<? super T>> BPlusTree<T> open(String filePath, FixedWidthCodec<T> codec, int poolPages) throws IOException {
+        return open(filePath, codec, Comparator.naturalOrder(), DEFAULT_PAGE_SIZE, poolPages, Eviction.CLOCK);
+    }
+
+    /**
+     * Opens the tree stored in {@code filePath}, creating an empty one if the file is missing or
+     * empty. An existing file must have been created with the same page size and key width.
+     *
+     * @param poolPages number of pages the buffer pool keeps in memory, at least 2
+     */
+    public static <T> BPlusTree<T> open(String filePath, FixedWidthCodec<T> codec, Comparator<? super T> cmp,
+                                        int pageSize, int poolPages, Eviction eviction) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new BPlusTree<>(channel, codec, cmp, pageSize, poolPages, eviction);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        BufferPool.Page page = pool.pin(0);
+        page.buffer()
+                .putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(8, pool.getPageSize())
+                .putInt(12, width)
+                .putLong(16, root)
+                .putLong(24, size)
+                .putLong(32, pool.getPageCount())
+                .putInt(40, height);
+        pool.unpin(page, true);
+    }
+
+    private static boolean isLeaf(ByteBuffer node) {
+        return node.get(0) == LEAF;
+    }
+
+    private static int count(ByteBuffer node) {
+        return node.getInt(4);
+    }
+
+    private static long rightSibling(ByteBuffer node) {
+        return node.getLong(8);
+    }
+
+    private static long child(ByteBuffer node, int i) {
+        return node.getLong(NODE_HEADER + i * Long.BYTES);
+    }
+
+    private static void setChild(ByteBuffer node, int i, long id) {
+        node.putLong(NODE_HEADER + i * Long.BYTES, id);
+    }
+
+    private int leafOffset(int i) {
+        return NODE_HEADER + i * width;
+    }
+
+    private int internalOffset(int i) {
+        return internalKeys + i * width;
+    }
+
+    /**
+     * Index of the first leaf key not less than {@code key}, or strictly greater when
+     * {@code strict}.
+     */
+    private int leafBound(ByteBuffer node, T key, boolean strict) {
+        int lo = 0;
+        int hi = count(node);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = cmp.compare(codec.get(node, leafOffset(mid)), key);
+            if (c < 0 || (strict && c == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Index of the child of an internal node that covers {@code key}: keys equal to a separator
+     * live to its right.
+     */
+    private int childIndex(ByteBuffer node, T key) {
+        int lo = 0;
+        int hi = count(node);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cmp.compare(codec.get(node, internalOffset(mid)), key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Descends to the leaf covering {@code key}, recording the internal pages passed in
+     * {@code path} when it is not null.
+     */
+    private long findLeaf(T key, long[] path) throws IOException {
+        long id = root;
+        for (int level = 0; level < height - 1; ++level) {
+            if (path != null) {
+                path[level] = id;
+            }
+            BufferPool.Page page = pool.pin(id);
+            try {
+                ByteBuffer node = page.buffer();
+                id = child(node, key == null ? 0 : childIndex(node, key));
+            } finally {
+                pool.unpin(page, false);
+            }
+        }
+        return id;
+    }
+
+    public boolean search(T key) throws IOException {
+        BufferPool.Page page = pool.pin(findLeaf(key, null));
+        try {
+            ByteBuffer node = page.buffer();
+            int i = leafBound(node, key, false);
+            return i < count(node) && cmp.compare(codec.get(node, leafOffset(i)), key) == 0;
+        } finally {
+            pool.unpin(page, false);
+        }
+    }
+
+    public void insert(T key) throws IOException {
+        long[] path = new long[height];
+        BufferPool.Page page = pool.pin(findLeaf(key, path));
+        boolean dirty = false;
+        T separator = null;
+        long right = NO_PAGE;
+        try {
+            ByteBuffer node = page.buffer();
+            byte[] bytes = node.array();
+            int n = count(node);
+            int i = leafBound(node, key, false);
+            if (i < n && cmp.compare(codec.get(node, leafOffset(i)), key) == 0) {
+                return;
+            }
+            dirty = true;
+            if (n < leafCapacity) {
+                System.arraycopy(bytes, leafOffset(i), bytes, leafOffset(i + 1), (n - i) * width);
+                codec.put(node, leafOffset(i), key);
+                node.putInt(4, n + 1);
+                ++size;
+                return;
+            }
+
+            BufferPool.Page siblingPage = pool.allocate();
+            try {
+                ByteBuffer sibling = siblingPage.buffer();
+                int left = (n + 1) / 2;
+                int moved = i < left ? left - 1 : left;
+                System.arraycopy(bytes, leafOffset(moved), sibling.array(), leafOffset(0), (n - moved) * width);
+                sibling.put(0, LEAF).putInt(4, n - moved).putLong(8, rightSibling(node));
+                node.putInt(4, moved).putLong(8, siblingPage.id());
+
+                ByteBuffer target = i < left ? node : sibling;
+                int at = i < left ? i : i - left;
+                int count = count(target);
+                System.arraycopy(target.array(), leafOffset(at), target.array(), leafOffset(at + 1), (count - at) * width);
+                codec.put(target, leafOffset(at), key);
+                target.putInt(4, count + 1);
+
+                separator = codec.get(sibling, leafOffset(0));
+                right = siblingPage.id();
+            } finally {
+                pool.unpin(siblingPage, true);
+            }
+        } finally {
+            pool.unpin(page, dirty);
+        }
+        insertSeparator(path, height - 2, separator, right);
+        ++size;
+    }
+
+    /**
+     * Adds {@code separator} and the page to its right to the internal node at {@code level} of
+     * {@code path}, splitting full nodes upwards and growing a new root when the old one splits.
+     */
+    private void insertSeparator(long[] path, int level, T separator, long right) throws IOException {
+        for (; level >= 0; --level) {
+            BufferPool.Page page = pool.pin(path[level]);
+            try {
+                ByteBuffer node = page.buffer();
+                byte[] bytes = node.array();
+                int n = count(node);
+                int i = childIndex(node, separator);
+                if (n < internalCapacity) {
+                    System.arraycopy(bytes, internalOffset(i), bytes, internalOffset(i + 1), (n - i) * width);
+                    System.arraycopy(bytes, NODE_HEADER + (i + 1) * Long.BYTES, bytes, NODE_HEADER + (i + 2) * Long.BYTES, (n - i) * Long.BYTES);
+                    codec.put(node, internalOffset(i), separator);
+                    setChild(node, i + 1, right);
+                    node.putInt(4, n + 1);
+                    return;
+                }
+
+                BufferPool.Page siblingPage = pool.allocate();
+                ByteBuffer keys = ByteBuffer.allocate((n + 1) * width);
+                System.arraycopy(bytes, internalOffset(0), keys.array(), 0, i * width);
+                codec.put(keys, i * width, separator);
+                System.arraycopy(bytes, internalOffset(i), keys.array(), (i + 1) * width, (n - i) * width);
+                long[] children = new long[n + 2];
+                for (int j = 0; j <= n; ++j) {
+                    children[j < i + 1 ? j : j + 1] = child(node, j);
+                }
+                children[i + 1] = right;
+
+                int mid = (n + 1) / 2;
+                System.arraycopy(keys.array(), 0, bytes, internalOffset(0), mid * width);
+                for (int j = 0; j <= mid; ++j) {
+                    setChild(node, j, children[j]);
+                }
+                node.putInt(4, mid);
+
+                ByteBuffer sibling = siblingPage.buffer();
+                sibling.put(0, INTERNAL).putInt(4, n - mid);
+                System.arraycopy(keys.array(), (mid + 1) * width, sibling.array(), internalOffset(0), (n - mid) * width);
+                for (int j = mid + 1; j <= n + 1; ++j) {
+                    setChild(sibling, j - mid - 1, children[j]);
+                }
+                separator = codec.get(keys, mid * width);
+                right = siblingPage.id();
+                pool.unpin(siblingPage, true);
+            } finally {
+                pool.unpin(page, true);
+            }
+        }
+
+        BufferPool.Page page = pool.allocate();
+        ByteBuffer node = page.buffer();
+        node.put(0, INTERNAL).putInt(4, 1);
+        setChild(node, 0, root);
+        setChild(node, 1, right);
+        codec.put(node, internalOffset(0), separator);
+        root = page.id();
+        ++height;
+        pool.unpin(page, true);
+    }
+
+    /**
+     * Removes {@code key} from its leaf. Underfull leaves are not merged and no page is freed.
+     */
+    public boolean delete(T key) throws IOException {
+        BufferPool.Page page = pool.pin(findLeaf(key, null));
+        boolean deleted = false;
+        try {
+            ByteBuffer node = page.buffer();
+            int n = count(node);
+            int i = leafBound(node, key, false);
+            if (i < n && cmp.compare(codec.get(node, leafOffset(i)), key) == 0) {
+                System.arraycopy(node.array(), leafOffset(i + 1), node.array(), leafOffset(i), (n - i - 1) * width);
+                node.putInt(4, n - 1);
+                --size;
+                deleted = true;
+            }
+            return deleted;
+        } finally {
+            pool.unpin(page, deleted);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getTreeHeight() {
+        return height;
+    }
+
+    /**
+     * The buffer pool, for its hit ratio and I/O counters.
+     */
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    public T findMinData() throws IOException {
+        try {
+            Iterator<T> it = iterator();
+            return it.hasNext() ? it.next() : null;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public T findMaxData() throws IOException {
+        return findMax(root);
+    }
+
+    private T findMax(long id) throws IOException {
+        long[] children;
+        BufferPool.Page page = pool.pin(id);
+        try {
+            ByteBuffer node = page.buffer();
+            int n = count(node);
+            if (isLeaf(node)) {
+                return n == 0 ? null : codec.get(node, leafOffset(n - 1));
+            }
+            children = new long[n + 1];
+            for (int i = 0; i <= n; ++i) {
+                children[i] = child(node, i);
+            }
+        } finally {
+            pool.unpin(page, false);
+        }
+
+        for (int i = children.length - 1; i >= 0; --i) {
+            T max = findMax(children[i]);
+            if (max != null) {
+                return max;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new RangeIterator(null, true, null, true);
+    }
+
+    /**
+     * Keys between the bounds in ascending order, read one leaf at a time along the leaf chain. A
+     * null bound is unbounded. I/O errors during iteration surface as
+     * {@link UncheckedIOException}.
+     */
+    public Iterable<T> subSet(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+        return () -> new RangeIterator(lo, loInclusive, hi, hiInclusive);
+    }
+
+    public Iterable<T> headSet(T hi, boolean inclusive) {
+        return subSet(null, true, hi, inclusive);
+    }
+
+    public Iterable<T> tailSet(T lo, boolean inclusive) {
+        return subSet(lo, inclusive, null, true);
+    }
+
+    /**
+     * Writes the header and every dirty page back and forces the file to disk.
+     */
+    public void flush() throws IOException {
+        writeHeader();
+        pool.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeHeader();
+        pool.close();
+    }
+
+    /**
+     * Copies the keys of one leaf at a time, so no page stays pinned between calls and an
+     * abandoned iterator holds nothing.
+     */
+    private class RangeIterator implements Iterator<T> {
+        private final T hi;
+        private final boolean hiInclusive;
+        private final Object[] batch = new Object[leafCapacity];
+        private int index;
+        private int count;
+        private long nextLeaf;
+
+        RangeIterator(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            try {
+                long leaf = findLeaf(lo, null);
+                BufferPool.Page page = pool.pin(leaf);
+                int from;
+                try {
+                    from = lo == null ? 0 : leafBound(page.buffer(), lo, !loInclusive);
+                } finally {
+                    pool.unpin(page, false);
+                }
+                load(leaf, from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void load(long leaf, int from) throws IOException {
+            while (true) {
+                BufferPool.Page page = pool.pin(leaf);
+                try {
+                    ByteBuffer node = page.buffer();
+                    int n = count(node);
+                    index = 0;
+                    count = 0;
+                    nextLeaf = rightSibling(node);
+                    for (int i = from; i < n; ++i) {
+                        T key = codec.get(node, leafOffset(i));
+                        if (hi != null) {
+                            int c = cmp.compare(key, hi);
+                            if (c > 0 || (c == 0 && !hiInclusive)) {
+                                nextLeaf = NO_PAGE;
+                                break;
+                            }
+                        }
+                        batch[count++] = key;
+                    }
+                } finally {
+                    pool.unpin(page, false);
+                }
+                if (count > 0 || nextLeaf == NO_PAGE) {
+                    return;
+                }
+                leaf = nextLeaf;
+                from = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < count) {
+                return true;
+            }
+            if (nextLeaf == NO_PAGE) {
+                return false;
+            }
+            try {
+                load(nextLeaf, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return index < count;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T key = (T) batch[index];
+            batch[index++] = null;
+            return key;
+        }
+    }
+}
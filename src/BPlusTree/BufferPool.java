@@ -0,0 +1,260 @@
+package BPlusTree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of fixed-size pages of one file. A page is read on its first {@link #pin(long)}
+ * and stays cached until it is evicted; while pinned it is never evicted. Dirty pages are written
+ * back when they are evicted or on {@link #flush()}. Not thread-safe.
+ */
+public final class BufferPool implements Closeable {
+
+    /**
+     * A cached page. Its buffer is only valid between {@link #pin(long)} and {@link #unpin}.
+     */
+    public static final class Page {
+        private final ByteBuffer buffer;
+        private long id = -1;
+        private int pins;
+        private boolean dirty;
+        private boolean referenced;
+
+        private Page(int pageSize) {
+            this.buffer = ByteBuffer.allocate(pageSize);
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+    }
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final Eviction eviction;
+    private final Page[] frames;
+    private final Map<Long, Page> cached;
+    private final ArrayDeque<Page> free = new ArrayDeque<>();
+    private int hand;
+    private long pageCount;
+
+    private long hits;
+    private long misses;
+    private long reads;
+    private long writes;
+    private long evictions;
+
+    /**
+     * @param pageCount number of pages already in the file; new pages are allocated after them
+     */
+    public BufferPool(FileChannel channel, int pageSize, int capacity, Eviction eviction, long pageCount) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.eviction = eviction;
+        this.frames = new Page[capacity];
+        this.cached = new LinkedHashMap<>(2 * capacity, 0.75f, eviction == Eviction.LRU);
+        this.pageCount = pageCount;
+        for (int i = 0; i < capacity; ++i) {
+            frames[i] = new Page(pageSize);
+            free.add(frames[i]);
+        }
+    }
+
+    public Page pin(long id) throws IOException {
+        if (id < 0 || id >= pageCount) {
+            throw new IllegalArgumentException("No page " + id);
+        }
+        Page page = cached.get(id);
+        if (page != null) {
+            ++hits;
+        } else {
+            ++misses;
+            page = victim();
+            try {
+                read(page, id);
+            } catch (IOException e) {
+                page.id = -1;
+                free.add(page);
+                throw e;
+            }
+            cached.put(id, page);
+        }
+        ++page.pins;
+        page.referenced = true;
+        return page;
+    }
+
+    /**
+     * Appends a zeroed page to the file and returns it pinned and dirty.
+     */
+    public Page allocate() throws IOException {
+        Page page = victim();
+        page.id = pageCount++;
+        Arrays.fill(page.buffer.array(), (byte) 0);
+        page.dirty = true;
+        page.pins = 1;
+        page.referenced = true;
+        cached.put(page.id, page);
+        return page;
+    }
+
+    public void unpin(Page page, boolean dirty) {
+        if (page.pins == 0) {
+            throw new IllegalStateException("Page " + page.id + " is not pinned");
+        }
+        --page.pins;
+        page.dirty |= dirty;
+    }
+
+    private Page victim() throws IOException {
+        Page page = free.poll();
+        if (page != null) {
+            return page;
+        }
+
+        if (eviction == Eviction.LRU) {
+            for (Page candidate : cached.values()) {
+                if (candidate.pins == 0) {
+                    page = candidate;
+                    break;
+                }
+            }
+        } else {
+            for (int i = 0; i < 2 * frames.length && page == null; ++i) {
+                Page candidate = frames[hand];
+                hand = (hand + 1) % frames.length;
+                if (candidate.pins == 0) {
+                    if (candidate.referenced) {
+                        candidate.referenced = false;
+                    } else {
+                        page = candidate;
+                    }
+                }
+            }
+        }
+        if (page == null) {
+            throw new IllegalStateException("All " + frames.length + " buffer pool pages are pinned");
+        }
+
+        // Write back before giving up the mapping; if the write fails the page stays cached
+        // under its id, so its data is neither lost nor shadowed by a stale copy read from disk.
+        if (page.dirty) {
+            write(page);
+        }
+        cached.remove(page.id);
+        ++evictions;
+        return page;
+    }
+
+    private void read(Page page, long id) throws IOException {
+        ByteBuffer buffer = page.buffer;
+        buffer.clear();
+        long position = id * pageSize;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                Arrays.fill(buffer.array(), buffer.position(), buffer.limit(), (byte) 0);
+                break;
+            }
+        }
+        page.id = id;
+        page.dirty = false;
+        ++reads;
+    }
+
+    private void write(Page page) throws IOException {
+        ByteBuffer buffer = page.buffer;
+        buffer.clear();
+        long position = page.id * pageSize;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        page.dirty = false;
+        ++writes;
+    }
+
+    /**
+     * Writes every dirty page back and forces the file to disk.
+     */
+    public void flush() throws IOException {
+        for (Page page : frames) {
+            if (page.dirty) {
+                write(page);
+            }
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    public long getPageCount() {
+        return pageCount;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getPageReads() {
+        return reads;
+    }
+
+    public long getPageWrites() {
+        return writes;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+        reads = 0;
+        writes = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BufferPool[%s, %d/%d pages, hit ratio %.4f, %d reads, %d writes, %d evictions]",
+                eviction, cached.size(), frames.length, getHitRatio(), reads, writes, evictions);
+    }
+}
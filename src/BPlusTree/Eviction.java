@@ -0,0 +1,11 @@
+package BPlusTree;
+
+/**
+ * Which unpinned page a full {@link BufferPool} gives up. LRU evicts the page used longest ago;
+ * CLOCK approximates it with one reference bit per frame and a sweeping hand, so a hit only sets
+ * a bit instead of reordering a list.
+ */
+public enum Eviction {
+    LRU,
+    CLOCK
+}
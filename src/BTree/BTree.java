@@ -0,0 +1,635 @@
+package BTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * In-memory B-tree with the operations of {@link AVL.AVL}. Each node keeps up to
+ * {@code fanout - 1} keys in one array and up to {@code fanout} children, so a search loads about
+ * log_fanout(n) nodes instead of log_2(n). Inserts split full nodes and deletes refill minimal
+ * nodes on the way down, so every update is a single descent.
+ */
+public class BTree<T extends Comparable<T>> implements Iterable<T> {
+
+    public static final int DEFAULT_FANOUT = 64;
+
+    private final Comparator<? super T> cmp;
+    private final NodeSearch nodeSearch;
+    private final int maxKeys;
+    private final int minKeys;
+
+    private Node root;
+    private int size;
+    private int height;
+
+    private static final class Node {
+        final Object[] keys;
+        final Node[] children;
+        int count;
+
+        Node(int maxKeys, boolean leaf) {
+            this.keys = new Object[maxKeys];
+            this.children = leaf ? null : new Node[maxKeys + 1];
+        }
+    }
+
+    public BTree() {
+        this(DEFAULT_FANOUT, NodeSearch.BINARY, null);
+    }
+
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public BTree(Comparator<? super T> cmp) {
+        this(DEFAULT_FANOUT, NodeSearch.BINARY, cmp);
+    }
+
+    /**
+     * @param fanout maximum number of children per node, at least 4; odd values are rounded down
+     * @param nodeSearch how a node is searched for a key
+     * @param cmp key order, or null for the natural ordering
+     */
+    public BTree(int fanout, NodeSearch nodeSearch, Comparator<? super T> cmp) {
+        if (fanout < 4) {
+            throw new IllegalArgumentException("fanout must be at least 4: " + fanout);
+        }
+        if (nodeSearch == null) {
+            throw new IllegalArgumentException("nodeSearch is null");
+        }
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+        this.nodeSearch = nodeSearch;
+        this.minKeys = fanout / 2 - 1;
+        this.maxKeys = 2 * minKeys + 1;
+    }
+
+    public static <T extends Comparable<T>> BTree<T> fromSorted(Object[] sorted) {
+        return fromSorted(DEFAULT_FANOUT, NodeSearch.BINARY, null, sorted);
+    }
+
+    /**
+     * Builds a tree of the strictly ascending {@code sorted} keys bottom-up in O(n), without
+     * splits. The tree has the least height that fits the keys, and the keys are spread evenly
+     * over each level, so only the nodes near the root are less than full.
+     */
+    public static <T extends Comparable<T>> BTree<T> fromSorted(int fanout, NodeSearch nodeSearch, Comparator<? super T> cmp, Object[] sorted) {
+        BTree<T> tree = new BTree<T>(fanout, nodeSearch, cmp);
+        for (int i = 1; i < sorted.length; ++i) {
+            if (tree.cmp.compare((T) sorted[i - 1], (T) sorted[i]) >= 0) {
+                throw new IllegalArgumentException("Input is not sorted in strictly ascending order at index " + i);
+            }
+        }
+        if (sorted.length == 0) {
+            return tree;
+        }
+
+        // capacity[h] is the number of keys in a full subtree of height h; a node has at least
+        // 4 children, so 17 levels hold more than Integer.MAX_VALUE keys.
+        long[] capacity = new long[18];
+        int height = 1;
+        capacity[1] = tree.maxKeys;
+        while (capacity[height] < sorted.length) {
+            capacity[height + 1] = (capacity[height] + 1) * (tree.maxKeys + 1) - 1;
+            ++height;
+        }
+        tree.height = height;
+        tree.root = tree.build(sorted, 0, sorted.length, capacity, tree.height);
+        tree.size = sorted.length;
+        return tree;
+    }
+
+    /**
+     * Builds a subtree of height {@code height} from the {@code count} keys of {@code sorted}
+     * starting at {@code from}. Each inner node takes the fewest children that can hold the keys
+     * and shares the keys evenly between them; since a child then holds at least half of a full
+     * subtree, every node below the root keeps at least fanout / 2 - 1 keys.
+     */
+    private Node build(Object[] sorted, int from, int count, long[] capacity, int height) {
+        Node node = new Node(maxKeys, height == 1);
+        if (height == 1) {
+            System.arraycopy(sorted, from, node.keys, 0, count);
+            node.count = count;
+            return node;
+        }
+
+        long full = capacity[height - 1] + 1;
+        int children = (int) ((count + full) / full);
+        int keys = count - (children - 1);
+        for (int i = 0; i < children; ++i) {
+            int share = keys / children + (i < keys % children ? 1 : 0);
+            node.children[i] = build(sorted, from, share, capacity, height - 1);
+            from += share;
+            if (i < children - 1) {
+                node.keys[i] = sorted[from++];
+            }
+        }
+        node.count = children - 1;
+        return node;
+    }
+
+    /**
+     * Returns the index of {@code key} in {@code node}, or {@code -(insertion point) - 1} when it
+     * is absent, like {@link java.util.Arrays#binarySearch(Object[], Object)}.
+     */
+    private int indexOf(Node node, T key) {
+        Object[] keys = node.keys;
+        if (nodeSearch == NodeSearch.LINEAR) {
+            int i = 0;
+            for (; i < node.count; ++i) {
+                int c = cmp.compare(key, (T) keys[i]);
+                if (c <= 0) {
+                    return c == 0 ? i : -i - 1;
+                }
+            }
+            return -i - 1;
+        }
+
+        int lo = 0;
+        int hi = node.count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = cmp.compare(key, (T) keys[mid]);
+            if (c > 0) {
+                lo = mid + 1;
+            } else if (c < 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -lo - 1;
+    }
+
+    public boolean search(T data) {
+        Node node = root;
+        while (node != null) {
+            int i = indexOf(node, data);
+            if (i >= 0) {
+                return true;
+            }
+            node = node.children == null ? null : node.children[-i - 1];
+        }
+        return false;
+    }
+
+    public void insert(T data) {
+        if (root == null) {
+            root = new Node(maxKeys, true);
+            height = 1;
+        } else if (root.count == maxKeys) {
+            Node node = new Node(maxKeys, false);
+            node.children[0] = root;
+            splitChild(node, 0);
+            root = node;
+            ++height;
+        }
+
+        Node node = root;
+        while (true) {
+            int i = indexOf(node, data);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (node.children == null) {
+                System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+                node.keys[i] = data;
+                ++node.count;
+                ++size;
+                return;
+            }
+            if (node.children[i].count == maxKeys) {
+                splitChild(node, i);
+                int c = cmp.compare(data, (T) node.keys[i]);
+                if (c == 0) {
+                    return;
+                }
+                if (c > 0) {
+                    ++i;
+                }
+            }
+            node = node.children[i];
+        }
+    }
+
+    /**
+     * Splits the full child {@code i} of {@code parent} around its middle key, which moves up
+     * into {@code parent}.
+     */
+    private void splitChild(Node parent, int i) {
+        Node child = parent.children[i];
+        Node sibling = new Node(maxKeys, child.children == null);
+        System.arraycopy(child.keys, minKeys + 1, sibling.keys, 0, minKeys);
+        if (child.children != null) {
+            System.arraycopy(child.children, minKeys + 1, sibling.children, 0, minKeys + 1);
+            Arrays.fill(child.children, minKeys + 1, maxKeys + 1, null);
+        }
+        sibling.count = minKeys;
+
+        System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.count - i);
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+        parent.keys[i] = child.keys[minKeys];
+        parent.children[i + 1] = sibling;
+        ++parent.count;
+
+        Arrays.fill(child.keys, minKeys, maxKeys, null);
+        child.count = minKeys;
+    }
+
+    public boolean delete(T data) {
+        if (root == null) {
+            return false;
+        }
+        boolean deleted = delete(root, data);
+        if (root.count == 0) {
+            root = root.children == null ? null : root.children[0];
+            --height;
+        }
+        if (deleted) {
+            --size;
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes {@code data} below {@code node}, which has more than the minimum number of keys
+     * unless it is the root. Every child descended into is first topped up to the same state.
+     */
+    private boolean delete(Node node, T data) {
+        while (true) {
+            int i = indexOf(node, data);
+            if (node.children == null) {
+                if (i < 0) {
+                    return false;
+                }
+                removeKey(node, i);
+                return true;
+            }
+
+            if (i >= 0) {
+                Node left = node.children[i];
+                Node right = node.children[i + 1];
+                if (left.count > minKeys) {
+                    Node max = left;
+                    while (max.children != null) {
+                        max = max.children[max.count];
+                    }
+                    data = (T) max.keys[max.count - 1];
+                    node.keys[i] = data;
+                    node = left;
+                } else if (right.count > minKeys) {
+                    Node min = right;
+                    while (min.children != null) {
+                        min = min.children[0];
+                    }
+                    data = (T) min.keys[0];
+                    node.keys[i] = data;
+                    node = right;
+                } else {
+                    merge(node, i);
+                    node = left;
+                }
+            } else {
+                i = -i - 1;
+                if (node.children[i].count == minKeys) {
+                    i = fill(node, i);
+                }
+                node = node.children[i];
+            }
+        }
+    }
+
+    private static void removeKey(Node node, int i) {
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.count - i - 1);
+        node.keys[--node.count] = null;
+    }
+
+    /**
+     * Gives child {@code i} of {@code parent} an extra key, borrowing from a sibling or merging
+     * with one, and returns the index of the child that now covers its keys.
+     */
+    private int fill(Node parent, int i) {
+        if (i > 0 && parent.children[i - 1].count > minKeys) {
+            Node child = parent.children[i];
+            Node left = parent.children[i - 1];
+            System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+            child.keys[0] = parent.keys[i - 1];
+            if (child.children != null) {
+                System.arraycopy(child.children, 0, child.children, 1, child.count + 1);
+                child.children[0] = left.children[left.count];
+                left.children[left.count] = null;
+            }
+            ++child.count;
+            parent.keys[i - 1] = left.keys[left.count - 1];
+            left.keys[--left.count] = null;
+            return i;
+        }
+        if (i < parent.count && parent.children[i + 1].count > minKeys) {
+            Node child = parent.children[i];
+            Node right = parent.children[i + 1];
+            child.keys[child.count] = parent.keys[i];
+            if (child.children != null) {
+                child.children[child.count + 1] = right.children[0];
+                System.arraycopy(right.children, 1, right.children, 0, right.count);
+                right.children[right.count] = null;
+            }
+            ++child.count;
+            parent.keys[i] = right.keys[0];
+            removeKey(right, 0);
+            return i;
+        }
+        if (i < parent.count) {
+            merge(parent, i);
+            return i;
+        }
+        merge(parent, i - 1);
+        return i - 1;
+    }
+
+    /**
+     * Merges children {@code i} and {@code i + 1} of {@code parent}, both minimal, around the key
+     * between them.
+     */
+    private void merge(Node parent, int i) {
+        Node left = parent.children[i];
+        Node right = parent.children[i + 1];
+        left.keys[minKeys] = parent.keys[i];
+        System.arraycopy(right.keys, 0, left.keys, minKeys + 1, right.count);
+        if (left.children != null) {
+            System.arraycopy(right.children, 0, left.children, minKeys + 1, right.count + 1);
+        }
+        left.count = maxKeys;
+
+        removeKey(parent, i);
+        System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.count - i);
+        parent.children[parent.count + 1] = null;
+    }
+
+    public T findMinData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node.children != null) {
+            node = node.children[0];
+        }
+        return (T) node.keys[0];
+    }
+
+    public T findMaxData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node.children != null) {
+            node = node.children[node.count];
+        }
+        return (T) node.keys[node.count - 1];
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+        height = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of node levels; every leaf is at the same depth.
+     */
+    public int getTreeHeight() {
+        return height;
+    }
+
+    public Object[] toSortedArray() {
+        Object[] result = new Object[size];
+        int index = 0;
+        for (T item : this) {
+            result[index++] = item;
+        }
+        return result;
+    }
+
+    public List<T> toSortedList() {
+        List<T> result = new ArrayList<>(size);
+        for (T item : this) {
+            result.add(item);
+        }
+        return result;
+    }
+
+    private boolean naturalOrder() {
+        return cmp == Comparator.naturalOrder();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new RangeView(null, false, null, false, false).iterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        if (naturalOrder()) {
+            characteristics |= Spliterator.SORTED;
+        }
+        return Spliterators.spliterator(iterator(), size, characteristics);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public RangeView subSet(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+        if (cmp.compare(lo, hi) > 0) {
+            throw new IllegalArgumentException("lo > hi");
+        }
+        return new RangeView(lo, loInclusive, hi, hiInclusive, false);
+    }
+
+    public RangeView subSet(T lo, T hi) {
+        return subSet(lo, true, hi, false);
+    }
+
+    public RangeView headSet(T hi, boolean inclusive) {
+        return new RangeView(null, false, hi, inclusive, false);
+    }
+
+    public RangeView tailSet(T lo, boolean inclusive) {
+        return new RangeView(lo, inclusive, null, false, false);
+    }
+
+    /**
+     * Live view of the keys between two optional bounds. Iteration descends once to the first key
+     * in range and then walks the keys of each node in place, so a view over k keys costs
+     * O(log n + k) and touches about k / fanout nodes.
+     */
+    public class RangeView implements Iterable<T> {
+        private final T lo;
+        private final boolean loInclusive;
+        private final T hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        private RangeView(T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending) {
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow(T item) {
+            if (lo == null) {
+                return false;
+            }
+            int c = cmp.compare(item, lo);
+            return c < 0 || (c == 0 && !loInclusive);
+        }
+
+        private boolean tooHigh(T item) {
+            if (hi == null) {
+                return false;
+            }
+            int c = cmp.compare(item, hi);
+            return c > 0 || (c == 0 && !hiInclusive);
+        }
+
+        public RangeView descending() {
+            return new RangeView(lo, loInclusive, hi, hiInclusive, !descending);
+        }
+
+        public int count() {
+            int count = 0;
+            for (Iterator<T> it = iterator(); it.hasNext(); it.next()) {
+                ++count;
+            }
+            return count;
+        }
+
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new RangeIterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+            if (!descending && naturalOrder()) {
+                characteristics |= Spliterator.SORTED;
+            }
+            return Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+        }
+
+        public Stream<T> stream() {
+            return StreamSupport.stream(spliterator(), false);
+        }
+
+        /**
+         * Keeps one frame per level: a node and the index of its next key in iteration order.
+         */
+        private class RangeIterator implements Iterator<T> {
+            private final Node[] nodes = new Node[height];
+            private final int[] positions = new int[height];
+            private int top = -1;
+            private T next;
+
+            RangeIterator() {
+                T bound = descending ? hi : lo;
+                boolean inclusive = descending ? hiInclusive : loInclusive;
+                Node node = root;
+                while (node != null && bound != null) {
+                    int i = indexOf(node, bound);
+                    if (i >= 0) {
+                        if (inclusive) {
+                            push(node, i);
+                        } else if (descending) {
+                            push(node, i - 1);
+                            pushEdge(child(node, i));
+                        } else {
+                            push(node, i + 1);
+                            pushEdge(child(node, i + 1));
+                        }
+                        node = null;
+                    } else {
+                        i = -i - 1;
+                        push(node, descending ? i - 1 : i);
+                        node = child(node, i);
+                    }
+                }
+                pushEdge(node);
+                advance();
+            }
+
+            private Node child(Node node, int i) {
+                return node.children == null ? null : node.children[i];
+            }
+
+            private void push(Node node, int position) {
+                nodes[++top] = node;
+                positions[top] = position;
+            }
+
+            private void pushEdge(Node node) {
+                while (node != null) {
+                    push(node, descending ? node.count - 1 : 0);
+                    node = child(node, descending ? node.count : 0);
+                }
+            }
+
+            private void advance() {
+                while (top >= 0 && (positions[top] < 0 || positions[top] >= nodes[top].count)) {
+                    --top;
+                }
+                if (top < 0) {
+                    next = null;
+                    return;
+                }
+                Node node = nodes[top];
+                int i = positions[top];
+                next = (T) node.keys[i];
+                if (descending ? tooLow(next) : tooHigh(next)) {
+                    next = null;
+                    top = -1;
+                    return;
+                }
+                if (descending) {
+                    positions[top] = i - 1;
+                    pushEdge(child(node, i));
+                } else {
+                    positions[top] = i + 1;
+                    pushEdge(child(node, i + 1));
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T item = next;
+                advance();
+                return item;
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package BTree;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link BTree} specialized to {@code long} keys. The keys of a node sit in one {@code long[]},
+ * so an in-node search reads consecutive cache lines and never dereferences a key.
+ */
+public class LongBTree {
+
+    private final NodeSearch nodeSearch;
+    private final int maxKeys;
+    private final int minKeys;
+
+    private Node root;
+    private int size;
+    private int height;
+
+    private static final class Node {
+        final long[] keys;
+        final Node[] children;
+        int count;
+
+        Node(int maxKeys, boolean leaf) {
+            this.keys = new long[maxKeys];
+            this.children = leaf ? null : new Node[maxKeys + 1];
+        }
+    }
+
+    public LongBTree() {
+        this(BTree.DEFAULT_FANOUT, NodeSearch.BINARY);
+    }
+
+    /**
+     * @param fanout maximum number of children per node, at least 4; odd values are rounded down
+     * @param nodeSearch how a node is searched for a key
+     */
+    public LongBTree(int fanout, NodeSearch nodeSearch) {
+        if (fanout < 4) {
+            throw new IllegalArgumentException("fanout must be at least 4: " + fanout);
+        }
+        if (nodeSearch == null) {
+            throw new IllegalArgumentException("nodeSearch is null");
+        }
+        this.nodeSearch = nodeSearch;
+        this.minKeys = fanout / 2 - 1;
+        this.maxKeys = 2 * minKeys + 1;
+    }
+
+    private int indexOf(Node node, long key) {
+        if (nodeSearch == NodeSearch.LINEAR) {
+            long[] keys = node.keys;
+            int i = 0;
+            while (i < node.count && keys[i] < key) {
+                ++i;
+            }
+            return i < node.count && keys[i] == key ? i : -i - 1;
+        }
+        return Arrays.binarySearch(node.keys, 0, node.count, key);
+    }
+
+    public boolean search(long data) {
+        Node node = root;
+        while (node != null) {
+            int i = indexOf(node, data);
+            if (i >= 0) {
+                return true;
+            }
+            node = node.children == null ? null : node.children[-i - 1];
+        }
+        return false;
+    }
+
+    public void insert(long data) {
+        if (root == null) {
+            root = new Node(maxKeys, true);
+            height = 1;
+        } else if (root.count == maxKeys) {
+            Node node = new Node(maxKeys, false);
+            node.children[0] = root;
+            splitChild(node, 0);
+            root = node;
+            ++height;
+        }
+
+        Node node = root;
+        while (true) {
+            int i = indexOf(node, data);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (node.children == null) {
+                System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+                node.keys[i] = data;
+                ++node.count;
+                ++size;
+                return;
+            }
+            if (node.children[i].count == maxKeys) {
+                splitChild(node, i);
+                if (data == node.keys[i]) {
+                    return;
+                }
+                if (data > node.keys[i]) {
+                    ++i;
+                }
+            }
+            node = node.children[i];
+        }
+    }
+
+    private void splitChild(Node parent, int i) {
+        Node child = parent.children[i];
+        Node sibling = new Node(maxKeys, child.children == null);
+        System.arraycopy(child.keys, minKeys + 1, sibling.keys, 0, minKeys);
+        if (child.children != null) {
+            System.arraycopy(child.children, minKeys + 1, sibling.children, 0, minKeys + 1);
+            Arrays.fill(child.children, minKeys + 1, maxKeys + 1, null);
+        }
+        sibling.count = minKeys;
+
+        System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.count - i);
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+        parent.keys[i] = child.keys[minKeys];
+        parent.children[i + 1] = sibling;
+        ++parent.count;
+
+        child.count = minKeys;
+    }
+
+    public boolean delete(long data) {
+        if (root == null) {
+            return false;
+        }
+        boolean deleted = delete(root, data);
+        if (root.count == 0) {
+            root = root.children == null ? null : root.children[0];
+            --height;
+        }
+        if (deleted) {
+            --size;
+        }
+        return deleted;
+    }
+
+    private boolean delete(Node node, long data) {
+        while (true) {
+            int i = indexOf(node, data);
+            if (node.children == null) {
+                if (i < 0) {
+                    return false;
+                }
+                removeKey(node, i);
+                return true;
+            }
+
+            if (i >= 0) {
+                Node left = node.children[i];
+                Node right = node.children[i + 1];
+                if (left.count > minKeys) {
+                    Node max = left;
+                    while (max.children != null) {
+                        max = max.children[max.count];
+                    }
+                    data = max.keys[max.count - 1];
+                    node.keys[i] = data;
+                    node = left;
+                } else if (right.count > minKeys) {
+                    Node min = right;
+                    while (min.children != null) {
+                        min = min.children[0];
+                    }
+                    data = min.keys[0];
+                    node.keys[i] = data;
+                    node = right;
+                } else {
+                    merge(node, i);
+                    node = left;
+                }
+            } else {
+                i = -i - 1;
+                if (node.children[i].count == minKeys) {
+                    i = fill(node, i);
+                }
+                node = node.children[i];
+            }
+        }
+    }
+
+    private static void removeKey(Node node, int i) {
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.count - i - 1);
+        --node.count;
+    }
+
+    private int fill(Node parent, int i) {
+        if (i > 0 && parent.children[i - 1].count > minKeys) {
+            Node child = parent.children[i];
+            Node left = parent.children[i - 1];
+            System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+            child.keys[0] = parent.keys[i - 1];
+            if (child.children != null) {
+                System.arraycopy(child.children, 0, child.children, 1, child.count + 1);
+                child.children[0] = left.children[left.count];
+                left.children[left.count] = null;
+            }
+            ++child.count;
+            parent.keys[i - 1] = left.keys[--left.count];
+            return i;
+        }
+        if (i < parent.count && parent.children[i + 1].count > minKeys) {
+            Node child = parent.children[i];
+            Node right = parent.children[i + 1];
+            child.keys[child.count] = parent.keys[i];
+            if (child.children != null) {
+                child.children[child.count + 1] = right.children[0];
+                System.arraycopy(right.children, 1, right.children, 0, right.count);
+                right.children[right.count] = null;
+            }
+            ++child.count;
+            parent.keys[i] = right.keys[0];
+            removeKey(right, 0);
+            return i;
+        }
+        if (i < parent.count) {
+            merge(parent, i);
+            return i;
+        }
+        merge(parent, i - 1);
+        return i - 1;
+    }
+
+    private void merge(Node parent, int i) {
+        Node left = parent.children[i];
+        Node right = parent.children[i + 1];
+        left.keys[minKeys] = parent.keys[i];
+        System.arraycopy(right.keys, 0, left.keys, minKeys + 1, right.count);
+        if (left.children != null) {
+            System.arraycopy(right.children, 0, left.children, minKeys + 1, right.count + 1);
+        }
+        left.count = maxKeys;
+
+        removeKey(parent, i);
+        System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.count - i);
+        parent.children[parent.count + 1] = null;
+    }
+
+    public long findMinData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node.children != null) {
+            node = node.children[0];
+        }
+        return node.keys[0];
+    }
+
+    public long findMaxData() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node.children != null) {
+            node = node.children[node.count];
+        }
+        return node.keys[node.count - 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+        height = 0;
+    }
+
+    public int getTreeHeight() {
+        return height;
+    }
+
+    public long[] toSortedArray() {
+        long[] result = new long[size];
+        int[] index = {0};
+        collect(root, result, index);
+        return result;
+    }
+
+    private static void collect(Node node, long[] result, int[] index) {
+        if (node == null) {
+            return;
+        }
+        for (int i = 0; i < node.count; ++i) {
+            if (node.children != null) {
+                collect(node.children[i], result, index);
+            }
+            result[index[0]++] = node.keys[i];
+        }
+        if (node.children != null) {
+            collect(node.children[node.count], result, index);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package BTree;
+
+/**
+ * How a B-tree node finds a key among its sorted keys. A linear scan touches the keys in memory
+ * order and wins for small fanouts; binary search does fewer comparisons and wins for large ones.
+ */
+public enum NodeSearch {
+    LINEAR,
+    BINARY
+}
@@ -1,27 +1,98 @@
 package BinarySearchTree;
 
+import Journal.WriteAheadLog;
+import MappedTree.FixedWidthCodec;
+import MappedTree.MappedTreeView;
+import Metrics.TreeListener;
+
 import java.io.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class BST<T> implements Serializable{
+public class BST<T> implements Serializable, Iterable<T> {
     private static final long serialVersionUID = 1234567891234567L;
     private Comparator<T> cmp;
     private Node<T> root;
+    private transient TreeListener listener;
+    private transient WriteAheadLog<T> journal;
 
-    public BST() {}
+    public BST() {
+        this.cmp = naturalOrder();
+    }
 
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
     public BST(Comparator<T> cmp) {
-        this.cmp = cmp;
+        this.cmp = cmp != null ? cmp : naturalOrder();
     }
 
     public BST(T root){
+        this();
         this.root = new Node<>(root);
     }
     public BST(Comparator<T> cmp, T root) {
-        this.cmp = cmp;
+        this(cmp);
         this.root = new Node<>(root);
     }
 
+    private static <T> Comparator<T> naturalOrder() {
+        return (Comparator<T>) (Comparator<?>) Comparator.naturalOrder();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (cmp == null) {
+            cmp = naturalOrder();
+        }
+    }
+
+    public static <T> BST<T> fromSorted(Object[] sorted) {
+        return fromSorted(null, sorted);
+    }
+
+    public static <T> BST<T> fromSorted(Comparator<T> cmp, Object[] sorted) {
+        BST<T> tree = new BST<>(cmp);
+        tree.checkSorted(sorted);
+        tree.root = build(sorted, 0, sorted.length - 1);
+        return tree;
+    }
+
+    public static <T> BST<T> fromSorted(Iterator<? extends T> sorted) {
+        return fromSorted(null, sorted);
+    }
+
+    public static <T> BST<T> fromSorted(Comparator<T> cmp, Iterator<? extends T> sorted) {
+        List<Object> items = new ArrayList<>();
+        while (sorted.hasNext()) {
+            items.add(sorted.next());
+        }
+        return fromSorted(cmp, items.toArray());
+    }
+
+    private void checkSorted(Object[] sorted) {
+        for (int i = 1; i < sorted.length; ++i) {
+            if (cmp.compare((T) sorted[i - 1], (T) sorted[i]) >= 0) {
+                throw new IllegalArgumentException("Input is not sorted in strictly ascending order at index " + i);
+            }
+        }
+    }
+
+    private static <T> Node<T> build(Object[] sorted, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        Node<T> node = new Node<>((T) sorted[mid]);
+        node.left = build(sorted, lo, mid - 1);
+        node.right = build(sorted, mid + 1, hi);
+        return node;
+    }
+
     private static class Node<T> implements Serializable{
         private static final long serialVersionUID = 852963741526312652L;
         T data;
@@ -40,124 +111,191 @@ public class BST<T> implements Serializable{
     }
 
     public void insert(T data) {
-       root = insert(data, root);
-    }
-
-    private Node<T> insert(T data, Node<T> root) {
         if (root == null) {
-            return new Node<>(data);
+            root = new Node<>(data);
+            record(TreeListener.Operation.INSERT, 0);
+            log(WriteAheadLog.Operation.INSERT, data);
+            return;
         }
 
-        if (cmp != null) {
-            if (cmp.compare(root.data, data) > 0) {
-                root.right = insert(data, root.right);
-            } else if (cmp.compare(root.data, data) < 0) {
-                root.left = insert(data, root.left);
-            }
-        } else {
-            if (((Comparable<T>)data).compareTo(root.data) > 0){
-                root.right = insert(data, root.right);
-            } else if (((Comparable<T>)data).compareTo(root.data) < 0) {
-                root.left = insert(data, root.left);
+        Node<T> current = root;
+        int depth = 0;
+        while (true) {
+            ++depth;
+            int c = cmp.compare(data, current.data);
+            if (c > 0) {
+                if (current.right == null) {
+                    current.right = new Node<>(data);
+                    break;
+                }
+                current = current.right;
+            } else if (c < 0) {
+                if (current.left == null) {
+                    current.left = new Node<>(data);
+                    break;
+                }
+                current = current.left;
+            } else {
+                record(TreeListener.Operation.INSERT, depth);
+                return;
             }
         }
+        record(TreeListener.Operation.INSERT, depth);
+        log(WriteAheadLog.Operation.INSERT, data);
+    }
 
-        return root;
+    /**
+     * Appends every insert and delete that changes the tree to {@code journal}, or stops logging
+     * when it is null, and writes a {@linkplain #checkpoint() checkpoint} whenever the journal
+     * reports one due. A failed append throws {@link UncheckedIOException} after the tree has
+     * changed. The journal is not serialized.
+     */
+    public void setJournal(WriteAheadLog<T> journal) {
+        this.journal = journal;
     }
 
-    public boolean search(T data) {
-        boolean bool;
-        if (cmp != null) {
-            bool = searchWithComparator(data, root) == null ? false : true;
-        } else {
-            bool = searchWithComparable((Comparable)data, root) == null ? false : true;
+    private void log(WriteAheadLog.Operation operation, T data) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(operation, data);
+            if (journal.isCheckpointDue()) {
+                journal.checkpoint(new SortedIterator());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return bool;
     }
 
-    private Node<T> searchWithComparator(T data, Node<T> root) {
-        if (root == null || cmp.compare(data, root.data) == 0) {
-            return root;
+    /**
+     * Writes the keys as the journal's new checkpoint, which empties its log. Unlike
+     * {@link #writeToFile(String, KeyCodec)} the tree is kept. A failed write throws
+     * {@link UncheckedIOException}.
+     */
+    public void checkpoint() {
+        if (journal == null) {
+            throw new IllegalStateException("No journal set");
         }
-
-        if (cmp.compare(data, root.data) > 0) {
-            return searchWithComparator(data, root.right);
-        } else {
-            return searchWithComparator(data, root.left);
+        try {
+            journal.checkpoint(new SortedIterator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private Node<T> searchWithComparable(Comparable<T> data, Node<T> root) {
-        if (root == null || data.compareTo(root.data) == 0) {
-            return root;
+    /**
+     * Replaces the keys with the journal's checkpoint and the operations logged after it, then
+     * logs to {@code journal}. If reading the journal fails, the tree and its previous journal
+     * are left as they were and {@link UncheckedIOException} is thrown.
+     */
+    public void recover(WriteAheadLog<T> journal) {
+        Node<T> previousRoot = this.root;
+        WriteAheadLog<T> previousJournal = this.journal;
+        this.journal = null;
+        boolean recovered = false;
+        try {
+            List<T> keys = new ArrayList<>();
+            journal.readCheckpoint(keys::add);
+            this.root = build(keys.iterator(), keys.size());
+            journal.replay((operation, key) -> {
+                if (operation == WriteAheadLog.Operation.INSERT) {
+                    insert(key);
+                } else {
+                    delete(key);
+                }
+            });
+            this.journal = journal;
+            recovered = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!recovered) {
+                this.root = previousRoot;
+                this.journal = previousJournal;
+            }
         }
+    }
 
-        if (data.compareTo(root.data) > 0) {
-            return searchWithComparable(data, root.right);
-        } else {
-            return searchWithComparable(data, root.left);
-        }
+    /**
+     * Reports every insert, delete and search to {@code listener}, or stops reporting when it is
+     * null. Successor and predecessor lookups are reported as searches. The listener is not
+     * serialized.
+     */
+    public void setListener(TreeListener listener) {
+        this.listener = listener;
     }
 
-    public boolean delete(T data) {
-        boolean bool;
-        if (cmp != null) {
-            bool = deleteWithComparator(data, root) != null;
-        } else {
-            bool = deleteWithComparable((Comparable<T>) data, root) != null;
+    private void record(TreeListener.Operation operation, int depth) {
+        TreeListener listener = this.listener;
+        if (listener != null) {
+            listener.onOperation(operation, depth, depth, 0, 0, 0);
         }
+    }
 
-        return bool;
+    public boolean search(T data) {
+        return search(data, root) != null;
     }
 
-    private Node<T> deleteWithComparator(T data, Node<T> root) {
-        if (root == null) {
-            return null;
+    private Node<T> search(T data, Node<T> root) {
+        int depth = 0;
+        while (root != null) {
+            ++depth;
+            int c = cmp.compare(data, root.data);
+            if (c == 0) {
+                break;
+            }
+            root = c > 0 ? root.right : root.left;
         }
+        record(TreeListener.Operation.SEARCH, depth);
+        return root;
+    }
 
-        if (cmp.compare(data, root.data) > 0) {
-            root.right = deleteWithComparator(data, root.right);
-            return root.right;
-        } else if (cmp.compare(data, root.data) < 0) {
-            root.left = deleteWithComparator(data, root.left);
-            return root.left;
-        } else {
-            if (root.right == null) {
-                return root.left;
-            } else if (root.left == null) {
-                return root.right;
-            } else {
-                root.data = findMinData(root.right);
-                root.right = deleteWithComparator(root.data, root.right);
-                return root;
+    public boolean delete(T data) {
+        Node<T> parent = null;
+        Node<T> current = root;
+        int depth = 0;
+        while (current != null) {
+            ++depth;
+            int c = cmp.compare(data, current.data);
+            if (c == 0) {
+                break;
             }
+            parent = current;
+            current = c > 0 ? current.right : current.left;
         }
 
+        record(TreeListener.Operation.DELETE, depth);
+        if (current == null) {
+            return false;
+        }
+
+        unlink(parent, current);
+        log(WriteAheadLog.Operation.DELETE, data);
+        return true;
     }
 
-    private Node<T> deleteWithComparable(Comparable<T> data, Node<T> root) {
-        if (root == null) {
-            return null;
+    private void unlink(Node<T> parent, Node<T> node) {
+        if (node.left != null && node.right != null) {
+            Node<T> successorParent = node;
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successorParent = successor;
+                successor = successor.left;
+            }
+            node.data = successor.data;
+            parent = successorParent;
+            node = successor;
         }
 
-        if (data.compareTo(root.data) > 0) {
-            root.right = deleteWithComparable(data, root.right);
-            return root.right;
-        } else if (data.compareTo(root.data) < 0) {
-            root.left = deleteWithComparable(data, root.left);
-            return root.left;
+        Node<T> child = node.left != null ? node.left : node.right;
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == node) {
+            parent.left = child;
         } else {
-            if (root.right == null) {
-                return root.left;
-            } else if (root.left == null) {
-                return root.right;
-            } else {
-                root.data = findMinData(root.right);
-                root.right = deleteWithComparable((Comparable<T>) root.data, root.right);
-                return root;
-            }
+            parent.right = child;
         }
-
     }
 
     public T findMinData() {
@@ -183,75 +321,148 @@ public class BST<T> implements Serializable{
     }
 
     public void preorderTraversal() {
-        preorderTraversal(root);
-    }
-    private void preorderTraversal(Node<T> root) {
-        if (root == null) {
-            return;
-        }
-        System.out.println(root.data);
-        preorderTraversal(root.left);
-        preorderTraversal(root.right);
+        preOrder(BST::print);
     }
 
     public void inorderTraversal() {
-        inorderTraversal(root);
-    }
-
-    private void inorderTraversal(Node<T> root) {
-        if (root == null) {
-            return;
-        }
-
-        inorderTraversal(root.left);
-        System.out.println(root.data);
-        inorderTraversal(root.right);
+        inOrder(BST::print);
     }
 
     public void postorderTraversal(){
-        postorderTraversal(root);
-    }
-
-    private void postorderTraversal(Node<T> root) {
-        if (root == null) {
-            return;
-        }
-
-        postorderTraversal(root.left);
-        postorderTraversal(root.right);
-        System.out.println(root.data);
+        postOrder(BST::print);
     }
 
     public void levelOrderTraversal() {
-        int height = getHeight(root);
+        levelOrder(BST::print);
+    }
 
-        for (int i = 1; i <= height; ++i) {
-            printLevel(root, i);
-        }
+    private static boolean print(Object item) {
+        System.out.println(item);
+        return true;
     }
 
-    private int getHeight(Node<T> root) {
+    /**
+     * Passes the keys to {@code visitor} in pre-order until it returns false, and returns whether
+     * it saw every key. Iterative; the extra memory is O(height).
+     */
+    public boolean preOrder(Predicate<? super T> visitor) {
         if (root == null) {
-            return 0;
+            return true;
         }
-
-        int leftHeight = getHeight(root.left);
-        int rightHeight = getHeight(root.right);
-
-        return Math.max(leftHeight, rightHeight) + 1;
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            if (!visitor.test(node.data)) {
+                return false;
+            }
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * In-order counterpart of {@link #preOrder}.
+     */
+    public boolean inOrder(Predicate<? super T> visitor) {
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null || !stack.isEmpty()) {
+            for (; node != null; node = node.left) {
+                stack.push(node);
+            }
+            node = stack.pop();
+            if (!visitor.test(node.data)) {
+                return false;
+            }
+            node = node.right;
+        }
+        return true;
+    }
+
+    /**
+     * Post-order counterpart of {@link #preOrder}.
+     */
+    public boolean postOrder(Predicate<? super T> visitor) {
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        Node<T> last = null;
+        while (node != null || !stack.isEmpty()) {
+            if (node != null) {
+                stack.push(node);
+                node = node.left;
+                continue;
+            }
+            Node<T> top = stack.peek();
+            if (top.right != null && top.right != last) {
+                node = top.right;
+            } else {
+                stack.pop();
+                if (!visitor.test(top.data)) {
+                    return false;
+                }
+                last = top;
+            }
+        }
+        return true;
     }
 
-    private void printLevel(Node<T> root, int level) {
+    /**
+     * Level-order counterpart of {@link #preOrder}; the extra memory is O(width).
+     */
+    public boolean levelOrder(Predicate<? super T> visitor) {
         if (root == null) {
-            return;
+            return true;
         }
-
-        if (level == 1) {
-            System.out.println(root.data);
-        } else if (level > 1) {
-            printLevel(root.left, level - 1);
-            printLevel(root.right, level - 1);
+        ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node<T> node = queue.poll();
+            if (!visitor.test(node.data)) {
+                return false;
+            }
+            if (node.left != null) {
+                queue.add(node.left);
+            }
+            if (node.right != null) {
+                queue.add(node.right);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Passes the keys one level at a time, from the root down, until {@code visitor} returns
+     * false, and returns whether it saw every level. Costs O(n) in total, with O(width) extra
+     * memory.
+     */
+    public boolean levelOrderByLevel(Predicate<? super List<T>> visitor) {
+        ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        if (root != null) {
+            queue.add(root);
         }
+        while (!queue.isEmpty()) {
+            List<T> level = new ArrayList<>(queue.size());
+            for (int i = queue.size(); i > 0; --i) {
+                Node<T> node = queue.poll();
+                level.add(node.data);
+                if (node.left != null) {
+                    queue.add(node.left);
+                }
+                if (node.right != null) {
+                    queue.add(node.right);
+                }
+            }
+            if (!visitor.test(level)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public T getSuccessorData(T data) {
@@ -259,47 +470,31 @@ public class BST<T> implements Serializable{
     }
 
     private T getSuccessorData(Node<T> root, T data) {
-        Node<T> current;
-        if (cmp != null) {
-            current = searchWithComparator(data, root);
-            if (current == null) {
-                return null;
+        Node<T> successor = null;
+        Node<T> current = root;
+        int depth = 0;
+        while (current != null) {
+            ++depth;
+            int c = cmp.compare(data, current.data);
+            if (c == 0) {
+                break;
             }
-            if (current.right != null) {
-                return findMinData(current.right);
+            if (c < 0) {
+                successor = current;
+                current = current.left;
             } else {
-                Node<T> successor = null;
-                Node<T> ancestor = root;
-                while (ancestor != current) {
-                    if (cmp.compare(current.data,ancestor.data) < 0) {
-                        successor = ancestor;
-                        ancestor = ancestor.left;
-                    } else
-                        ancestor = ancestor.right;
-                }
-                return successor.data;
-            }
-        } else {
-            current = searchWithComparable((Comparable<T>) data, root);
-            if (current == null) {
-                return null;
-            }
-            if (current.right != null) {
-                return findMinData(current.right);
-            } else {
-                Node<T> successor = null;
-                Node<T> ancestor = root;
-                while (ancestor != current) {
-                    if (((Comparable<T>) data).compareTo(ancestor.data) < 0) {
-                        successor = ancestor;
-                        ancestor = ancestor.left;
-                    } else
-                        ancestor = ancestor.right;
-                }
-                return successor.data;
+                current = current.right;
             }
         }
 
+        record(TreeListener.Operation.SEARCH, depth);
+        if (current == null) {
+            return null;
+        }
+        if (current.right != null) {
+            return findMinData(current.right);
+        }
+        return successor == null ? null : successor.data;
     }
 
     public T getPredecessorData(T data) {
@@ -307,47 +502,31 @@ public class BST<T> implements Serializable{
     }
 
     private T getPredecessorData(Node<T> root, T data) {
-        Node<T> current;
-        if (cmp != null) {
-            current = searchWithComparator(data, root);
-            if (current == null) {
-                return null;
-            }
-            if (current.left != null) {
-                return findMaxData(current.left);
-            } else {
-                Node<T> predecessor = null;
-                Node<T> ancestor = root;
-                while (ancestor != current) {
-                    if (cmp.compare(current.data,ancestor.data) > 0) {
-                        predecessor = ancestor;
-                        ancestor = ancestor.right;
-                    } else
-                        ancestor = ancestor.left;
-                }
-                return predecessor.data;
-            }
-        } else {
-            current = searchWithComparable((Comparable<T>) data, root);
-            if (current == null) {
-                return null;
+        Node<T> predecessor = null;
+        Node<T> current = root;
+        int depth = 0;
+        while (current != null) {
+            ++depth;
+            int c = cmp.compare(data, current.data);
+            if (c == 0) {
+                break;
             }
-            if (current.left != null) {
-                return findMaxData(current.left);
+            if (c > 0) {
+                predecessor = current;
+                current = current.right;
             } else {
-                Node<T> predecessor = null;
-                Node<T> ancestor = root;
-                while (ancestor != current) {
-                    if (((Comparable<T>) data).compareTo(ancestor.data) > 0) {
-                        predecessor = ancestor;
-                        ancestor = ancestor.right;
-                    } else
-                        ancestor = ancestor.left;
-                }
-                return predecessor.data;
+                current = current.left;
             }
         }
 
+        record(TreeListener.Operation.SEARCH, depth);
+        if (current == null) {
+            return null;
+        }
+        if (current.left != null) {
+            return findMaxData(current.left);
+        }
+        return predecessor == null ? null : predecessor.data;
     }
 
     public void clear() {
@@ -391,13 +570,17 @@ public class BST<T> implements Serializable{
     }
 
     public void toSortedList(List<Object> list, Node<T> root) {
-        if (root == null) {
-            return;
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> current = root;
+        while (current != null || !stack.isEmpty()) {
+            while (current != null) {
+                stack.push(current);
+                current = current.left;
+            }
+            current = stack.pop();
+            list.add(current.data);
+            current = current.right;
         }
-
-        toSortedList(list, root.left);
-        list.add(root.data);
-        toSortedList(list, root.right);
     }
 
     public void writeToFile(String filePath) {
@@ -410,6 +593,324 @@ public class BST<T> implements Serializable{
         }
     }
 
+    /**
+     * Writes the keys as a {@link SortedKeyFile} and clears the tree. A failed write throws
+     * {@link UncheckedIOException} and keeps the tree.
+     */
+    public void writeToFile(String filePath, KeyCodec<T> codec) {
+        try {
+            SortedKeyFile.write(filePath, new SortedIterator(), codec);
+            this.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces the keys with those of a {@link SortedKeyFile}. A missing, corrupt or truncated
+     * file throws {@link UncheckedIOException} and keeps the tree as it was.
+     */
+    public void readFromFile(String filePath, KeyCodec<T> codec) {
+        try (SortedKeyFile.Reader<T> reader = SortedKeyFile.open(filePath, codec)) {
+            this.root = build(reader, reader.count());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> Node<T> build(Iterator<T> sorted, long count) {
+        if (count == 0) {
+            return null;
+        }
+
+        long leftCount = (count - 1) / 2;
+        Node<T> left = build(sorted, leftCount);
+        Node<T> node = new Node<>(sorted.next());
+        node.left = left;
+        node.right = build(sorted, count - 1 - leftCount);
+        return node;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new SortedIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new TreeSpliterator(root, null, Long.MAX_VALUE);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Movable position in the tree. The cursor keeps the path from the root, so {@link #next()}
+     * and {@link #previous()} cost O(1) amortized, and {@link #seek(Object)} starts from the
+     * current position, climbing only as far as the key requires before descending. A cursor
+     * starts unpositioned; any modification of the tree invalidates it.
+     */
+    public class Cursor {
+        private Node<T>[] path = new Node[16];
+        private int top = -1;
+
+        private Cursor() { }
+
+        private void push(Node<T> node) {
+            if (++top == path.length) {
+                path = Arrays.copyOf(path, 2 * path.length);
+            }
+            path[top] = node;
+        }
+
+        private void pushLeft(Node<T> node) {
+            for (; node != null; node = node.left) {
+                push(node);
+            }
+        }
+
+        private void pushRight(Node<T> node) {
+            for (; node != null; node = node.right) {
+                push(node);
+            }
+        }
+
+        public boolean isPositioned() {
+            return top >= 0;
+        }
+
+        public T get() {
+            if (top < 0) {
+                throw new NoSuchElementException();
+            }
+            return path[top].data;
+        }
+
+        public boolean first() {
+            top = -1;
+            pushLeft(root);
+            return top >= 0;
+        }
+
+        public boolean last() {
+            top = -1;
+            pushRight(root);
+            return top >= 0;
+        }
+
+        /**
+         * Moves to the next key, or leaves the cursor unpositioned and returns false at the end.
+         */
+        public boolean next() {
+            if (top < 0) {
+                throw new NoSuchElementException();
+            }
+            if (path[top].right != null) {
+                pushLeft(path[top].right);
+                return true;
+            }
+            while (top > 0 && path[top - 1].right == path[top]) {
+                --top;
+            }
+            return --top >= 0;
+        }
+
+        /**
+         * Moves to the previous key, or leaves the cursor unpositioned and returns false at the start.
+         */
+        public boolean previous() {
+            if (top < 0) {
+                throw new NoSuchElementException();
+            }
+            if (path[top].left != null) {
+                pushRight(path[top].left);
+                return true;
+            }
+            while (top > 0 && path[top - 1].left == path[top]) {
+                --top;
+            }
+            return --top >= 0;
+        }
+
+        /**
+         * Moves to the first key not less than {@code key} and returns whether it equals
+         * {@code key}. When every key is less, the cursor is left unpositioned. From a
+         * positioned cursor the search climbs only to the lowest ancestor whose subtree can hold
+         * the answer, so seeking a nearby key touches few nodes.
+         */
+        public boolean seek(T key) {
+            if (top < 0) {
+                if (root == null) {
+                    return false;
+                }
+                push(root);
+            } else {
+                int c = cmp.compare(key, path[top].data);
+                if (c == 0) {
+                    return true;
+                }
+                while (top > 0) {
+                    Node<T> parent = path[top - 1];
+                    if ((c < 0) == (parent.right == path[top])) {
+                        int p = cmp.compare(key, parent.data);
+                        if (p == 0) {
+                            --top;
+                            return true;
+                        }
+                        if ((p < 0) != (c < 0)) {
+                            break;
+                        }
+                    }
+                    --top;
+                }
+            }
+
+            while (true) {
+                Node<T> node = path[top];
+                int c = cmp.compare(key, node.data);
+                if (c == 0) {
+                    return true;
+                }
+                Node<T> child = c < 0 ? node.left : node.right;
+                if (child == null) {
+                    if (c > 0) {
+                        while (top > 0 && path[top - 1].right == path[top]) {
+                            --top;
+                        }
+                        --top;
+                    }
+                    return false;
+                }
+                push(child);
+            }
+        }
+    }
+
+    private class SortedIterator implements Iterator<T> {
+        private final Deque<Node<T>> stack = new ArrayDeque<>();
+
+        SortedIterator() {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = stack.pop();
+            pushLeft(node.right);
+            return node.data;
+        }
+    }
+
+    /**
+     * Walks {@code subtree} in order and then {@code last}. Splitting hands the left subtree and
+     * its root to a new spliterator and keeps the right subtree.
+     */
+    private class TreeSpliterator implements Spliterator<T> {
+        private Node<T> subtree;
+        private Node<T> last;
+        private ArrayDeque<Node<T>> stack;
+        private long estimate;
+
+        TreeSpliterator(Node<T> subtree, Node<T> last, long estimate) {
+            this.subtree = subtree;
+            this.last = last;
+            this.estimate = estimate;
+        }
+
+        private void pushLeft(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (stack == null) {
+                stack = new ArrayDeque<>();
+                pushLeft(subtree);
+                subtree = null;
+            }
+
+            Node<T> node;
+            if (!stack.isEmpty()) {
+                node = stack.pop();
+                pushLeft(node.right);
+            } else if (last != null) {
+                node = last;
+                last = null;
+            } else {
+                return false;
+            }
+
+            action.accept(node.data);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Node<T> node = subtree;
+            if (stack != null || node == null || (node.left == null && node.right == null)) {
+                return null;
+            }
+
+            estimate >>>= 1;
+            subtree = node.right;
+            return new TreeSpliterator(node.left, node, estimate);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return cmp == Comparator.naturalOrder() ? null : cmp;
+        }
+    }
+
+    /**
+     * Writes the keys as a file that {@link MappedTreeView} can map. A failed write throws
+     * {@link UncheckedIOException}, so a partial snapshot is never mistaken for a complete one.
+     */
+    public void writeSnapshot(String filePath, FixedWidthCodec<T> codec) {
+        try {
+            MappedTreeView.write(filePath, toSortedArray(), codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public void readFromFile(String filePath) {
         try(FileInputStream fis = new FileInputStream(filePath); ObjectInputStream ois = new ObjectInputStream(fis)) {
             this.root = ((BST<T>)ois.readObject()).root;
@@ -0,0 +1,101 @@
+package BinarySearchTree;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public interface KeyCodec<T> {
+
+    /**
+     * Writes {@code key} to {@code out}. Keys are written in ascending order, so {@code previous}
+     * (null for the first key) can be used for delta encoding.
+     */
+    void encode(T previous, T key, ByteBuffer out);
+
+    /**
+     * Reads the key written by {@link #encode} after {@code previous}.
+     */
+    T decode(T previous, ByteBuffer in);
+
+    KeyCodec<Long> LONG = new KeyCodec<>() {
+        public void encode(Long previous, Long key, ByteBuffer out) {
+            out.putLong(key);
+        }
+
+        public Long decode(Long previous, ByteBuffer in) {
+            return in.getLong();
+        }
+    };
+
+    KeyCodec<Integer> INTEGER = new KeyCodec<>() {
+        public void encode(Integer previous, Integer key, ByteBuffer out) {
+            out.putInt(key);
+        }
+
+        public Integer decode(Integer previous, ByteBuffer in) {
+            return in.getInt();
+        }
+    };
+
+    KeyCodec<Long> DELTA_LONG = new KeyCodec<>() {
+        public void encode(Long previous, Long key, ByteBuffer out) {
+            putVarLong(out, zigZag(previous == null ? key : key - previous));
+        }
+
+        public Long decode(Long previous, ByteBuffer in) {
+            long delta = unZigZag(getVarLong(in));
+            return previous == null ? delta : previous + delta;
+        }
+    };
+
+    KeyCodec<Integer> DELTA_INTEGER = new KeyCodec<>() {
+        public void encode(Integer previous, Integer key, ByteBuffer out) {
+            putVarLong(out, zigZag(previous == null ? key : (long) key - previous));
+        }
+
+        public Integer decode(Integer previous, ByteBuffer in) {
+            long delta = unZigZag(getVarLong(in));
+            return (int) (previous == null ? delta : previous + delta);
+        }
+    };
+
+    KeyCodec<String> STRING = new KeyCodec<>() {
+        public void encode(String previous, String key, ByteBuffer out) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            putVarLong(out, bytes.length);
+            out.put(bytes);
+        }
+
+        public String decode(String previous, ByteBuffer in) {
+            byte[] bytes = new byte[(int) getVarLong(in)];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package BinarySearchTree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Versioned file of keys in ascending order: a header (magic, version, key count) followed by
+ * the keys as written by a {@link KeyCodec}.
+ */
+public final class SortedKeyFile {
+    private static final int MAGIC = 0x54524545;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SortedKeyFile() {}
+
+    public static <T> long write(String filePath, Iterator<? extends T> keys, KeyCodec<T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.position(HEADER_SIZE);
+
+            long count = 0;
+            T previous = null;
+            while (keys.hasNext()) {
+                T key = keys.next();
+                while (true) {
+                    int mark = buffer.position();
+                    try {
+                        codec.encode(previous, key, buffer);
+                        break;
+                    } catch (BufferOverflowException e) {
+                        buffer.position(mark);
+                        if (mark == 0) {
+                            buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                        } else {
+                            drain(channel, buffer);
+                        }
+                    }
+                }
+                previous = key;
+                ++count;
+            }
+            drain(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put(VERSION).putLong(count).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            return count;
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static <T> Reader<T> open(String filePath, KeyCodec<T> codec) throws IOException {
+        return new Reader<>(FileChannel.open(Paths.get(filePath), StandardOpenOption.READ), codec);
+    }
+
+    public static final class Reader<T> implements Iterator<T>, Closeable {
+        private final FileChannel channel;
+        private final KeyCodec<T> codec;
+        private final long count;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long read;
+        private T previous;
+
+        private Reader(FileChannel channel, KeyCodec<T> codec) throws IOException {
+            this.channel = channel;
+            this.codec = codec;
+            try {
+                buffer.limit(0);
+                fill();
+                if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                    throw new IOException("Not a sorted key file");
+                }
+                byte version = buffer.get();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported sorted key file version " + version);
+                }
+                this.count = buffer.getLong();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return read < count;
+        }
+
+        @Override
+        public T next() {
+            if (read >= count) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                while (true) {
+                    int mark = buffer.position();
+                    try {
+                        previous = codec.decode(previous, buffer);
+                        ++read;
+                        return previous;
+                    } catch (BufferUnderflowException e) {
+                        buffer.position(mark);
+                        if (mark == 0 && buffer.limit() == buffer.capacity()) {
+                            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer).flip();
+                        }
+                        if (fill() < 0) {
+                            throw new IOException("Truncated sorted key file");
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int fill() throws IOException {
+            buffer.compact();
+            int n = channel.read(buffer);
+            buffer.flip();
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
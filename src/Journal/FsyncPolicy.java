@@ -0,0 +1,22 @@
+package Journal;
+
+/**
+ * When appended log records are forced to disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * An append returns once its record is on disk. Appends that arrive while a force is in
+     * progress are written and forced together by the next one (group commit).
+     */
+    ALWAYS,
+    /**
+     * Records are written and forced by a background thread every interval; a crash loses at
+     * most the last interval of appends.
+     */
+    INTERVAL,
+    /**
+     * Records are written every interval but never forced; the operating system decides when
+     * they reach disk. Only {@link WriteAheadLog#sync()}, checkpoints and close force them.
+     */
+    NEVER
+}
@@ -0,0 +1,550 @@
+package Journal;
+
+import BinarySearchTree.KeyCodec;
+import BinarySearchTree.SortedKeyFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of inserts and deletes plus a checkpoint of the whole key set, both kept in one
+ * directory. Each record is framed by its length and a CRC32C, so recovery stops cleanly at a torn
+ * tail. A {@link #checkpoint(Iterator)} writes the keys as a {@link SortedKeyFile}, atomically
+ * replaces the previous checkpoint and empties the log; recovery loads the checkpoint and
+ * {@linkplain #replay replays} the log onto it. Once the log outgrows the last checkpoint,
+ * {@link #isCheckpointDue()} asks the owner of the keys to write a new one, which keeps both the
+ * log and recovery time proportional to the key set.
+ *
+ * The log header carries a generation, and each checkpoint is named after the generation whose
+ * records it already contains. If a crash hits between renaming a checkpoint into place and
+ * emptying the log, the log still has that generation and is discarded when reopened, so no
+ * record is applied twice; this keeps multiset counts exact.
+ *
+ * Appends are buffered in memory and written in batches; {@link FsyncPolicy} decides when a
+ * batch is forced to disk. Thread-safe.
+ */
+public final class WriteAheadLog<T> implements Closeable {
+
+    public enum Operation {
+        INSERT,
+        DELETE
+    }
+
+    private static final int MAGIC = 0x57414C31;
+    private static final byte VERSION = 2;
+    private static final int GENERATION_OFFSET = Integer.BYTES + Byte.BYTES;
+    private static final int HEADER_SIZE = GENERATION_OFFSET + Long.BYTES;
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+    private static final int MAX_RECORD = 1 << 26;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_PENDING = 1 << 20;
+    private static final long DEFAULT_CHECKPOINT_RECORDS = 1 << 16;
+
+    private static final String LOG_FILE = "wal.log";
+    private static final String CHECKPOINT_PREFIX = "checkpoint.";
+    private static final String CHECKPOINT_SUFFIX = ".keys";
+
+    private final Path directory;
+    private final KeyCodec<T> codec;
+    private final FsyncPolicy policy;
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean flushing;
+    private long appended;
+    private long written;
+    private long durable;
+    private long syncs;
+    private IOException failure;
+    private boolean closed;
+    private long generation;
+    private long checkpointGeneration;
+    private long checkpointKeys;
+    private long checkpointRecords = DEFAULT_CHECKPOINT_RECORDS;
+    private long logged;
+
+    private WriteAheadLog(Path directory, KeyCodec<T> codec, FsyncPolicy policy, long intervalMillis) throws IOException {
+        this.directory = directory;
+        this.codec = codec;
+        this.policy = policy;
+        Files.createDirectories(directory);
+        this.checkpointGeneration = latestCheckpoint(directory);
+        this.channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                generation = checkpointGeneration + 1;
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION).putLong(generation).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                channel.force(true);
+            } else {
+                channel.truncate(scan(null));
+                if (generation <= checkpointGeneration) {
+                    // A crash interrupted a checkpoint after its rename; the records are in it.
+                    startGeneration(checkpointGeneration + 1);
+                }
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        if (policy == FsyncPolicy.ALWAYS) {
+            this.flusher = null;
+        } else {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher " + directory);
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the generation of the newest checkpoint in {@code directory}, or -1 if there is none.
+     */
+    private static long latestCheckpoint(Path directory) throws IOException {
+        long latest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)) {
+            for (Path file : files) {
+                latest = Math.max(latest, generationOf(file));
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Parses the generation out of a checkpoint file name, or returns -1 if it has none.
+     */
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(CHECKPOINT_PREFIX.length(), name.length() - CHECKPOINT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private Path checkpointFile(long generation) {
+        return directory.resolve(CHECKPOINT_PREFIX + generation + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * Opens the log in {@code directory}, creating the directory and an empty log if needed. A
+     * torn record at the end of an existing log is cut off.
+     *
+     * @param intervalMillis how often the background thread writes records under
+     *                       {@link FsyncPolicy#INTERVAL} and {@link FsyncPolicy#NEVER}
+     */
+    public static <T> WriteAheadLog<T> open(String directory, KeyCodec<T> codec, FsyncPolicy policy, long intervalMillis) throws IOException {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        return new WriteAheadLog<>(Paths.get(directory), codec, policy, intervalMillis);
+    }
+
+    public static <T> WriteAheadLog<T> open(String directory, KeyCodec<T> codec, FsyncPolicy policy) throws IOException {
+        return open(directory, codec, policy, 10);
+    }
+
+    /**
+     * Appends one record. Under {@link FsyncPolicy#ALWAYS} it is on disk when this returns;
+     * otherwise it is only buffered.
+     */
+    public void append(Operation operation, T key) throws IOException {
+        lock.lock();
+        try {
+            check();
+            int start = pending.position();
+            while (true) {
+                try {
+                    if (pending.capacity() - start <= RECORD_HEADER) {
+                        throw new BufferOverflowException();
+                    }
+                    pending.position(start + RECORD_HEADER);
+                    pending.put((byte) operation.ordinal());
+                    codec.encode(null, key, pending);
+                    break;
+                } catch (BufferOverflowException e) {
+                    pending = ByteBuffer.allocate(pending.capacity() * 2).put(pending.position(0).limit(start));
+                }
+            }
+            int length = pending.position() - start - RECORD_HEADER;
+            crc.reset();
+            crc.update(pending.array(), start + RECORD_HEADER, length);
+            pending.putInt(start, length).putInt(start + Integer.BYTES, (int) crc.getValue());
+            long lsn = ++appended;
+            ++logged;
+
+            if (policy == FsyncPolicy.ALWAYS) {
+                sync(lsn, true);
+            } else if (pending.position() >= MAX_PENDING) {
+                sync(lsn, false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and forces every record appended so far.
+     */
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            check();
+            sync(appended, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes record {@code lsn} written, and forced if {@code force}. One caller at a time writes
+     * the whole pending buffer while the lock is released, so appends that arrive meanwhile go
+     * into the other buffer and are covered by the next write. Called with the lock held.
+     */
+    private void sync(long lsn, boolean force) throws IOException {
+        while ((force ? durable : written) < lsn) {
+            check();
+            if (flushing) {
+                flushed.awaitUninterruptibly();
+                continue;
+            }
+
+            flushing = true;
+            ByteBuffer batch = pending;
+            pending = spare;
+            long target = appended;
+            IOException error = null;
+            lock.unlock();
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                lock.lock();
+                spare = batch.clear();
+                flushing = false;
+                if (error == null) {
+                    written = target;
+                    if (force) {
+                        durable = target;
+                        ++syncs;
+                    }
+                } else {
+                    failure = error;
+                }
+                flushed.signalAll();
+            }
+        }
+    }
+
+    private void flushInBackground() {
+        lock.lock();
+        try {
+            if (!closed && failure == null) {
+                sync(appended, policy == FsyncPolicy.INTERVAL);
+            }
+        } catch (IOException e) {
+            // Kept in failure and rethrown to the next caller.
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void check() throws IOException {
+        if (closed) {
+            throw new IOException("Write-ahead log is closed");
+        }
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed to write", failure);
+        }
+    }
+
+    /**
+     * Makes {@code sorted}, which must hold every key in ascending order, the new checkpoint and
+     * empties the log, which moves on to the next generation. Records appended by other threads
+     * while the keys are collected are lost with the log, so the caller must not append
+     * concurrently.
+     */
+    public void checkpoint(Iterator<? extends T> sorted) throws IOException {
+        lock.lock();
+        try {
+            check();
+            sync(appended, true);
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+                sync(appended, true);
+            }
+            Path temporary = directory.resolve(CHECKPOINT_PREFIX + "tmp");
+            long keys = SortedKeyFile.write(temporary.toString(), sorted, codec);
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                file.force(true);
+            }
+            Files.move(temporary, checkpointFile(generation), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+                dir.force(true);
+            } catch (IOException e) {
+                // Not every platform can force a directory; the rename is still atomic.
+            }
+            checkpointGeneration = generation;
+            checkpointKeys = keys;
+            try {
+                startGeneration(generation + 1);
+            } catch (IOException e) {
+                // Appends to this generation would be discarded on reopen, so stop taking them.
+                failure = e;
+                throw e;
+            }
+            syncs += 2;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)) {
+                for (Path file : files) {
+                    if (generationOf(file) < checkpointGeneration) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Empties the log and stamps it with {@code next}. The log must be empty on disk before it
+     * claims the new generation, or a crash could leave records already in the checkpoint to be
+     * replayed on top of it.
+     */
+    private void startGeneration(long next) throws IOException {
+        channel.truncate(HEADER_SIZE);
+        channel.force(true);
+        ByteBuffer stamp = ByteBuffer.allocate(Long.BYTES).putLong(0, next);
+        while (stamp.hasRemaining()) {
+            channel.write(stamp, GENERATION_OFFSET + stamp.position());
+        }
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+        generation = next;
+        logged = 0;
+    }
+
+    /**
+     * Makes {@link #isCheckpointDue()} true once the log holds at least {@code records} records
+     * and at least as many as the last checkpoint has keys, so the log never grows far past the
+     * key set and rewriting the checkpoint costs O(1) amortized per record. Zero turns the
+     * trigger off. The default is 65536.
+     */
+    public void setCheckpointRecords(long records) {
+        if (records < 0) {
+            throw new IllegalArgumentException("records must not be negative: " + records);
+        }
+        lock.lock();
+        try {
+            checkpointRecords = records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether the owner of the keys should call {@link #checkpoint(Iterator)}; see
+     * {@link #setCheckpointRecords(long)}.
+     */
+    public boolean isCheckpointDue() {
+        lock.lock();
+        try {
+            return checkpointRecords > 0 && logged >= Math.max(checkpointRecords, checkpointKeys);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every key of the last checkpoint to {@code load} in ascending order; passes nothing
+     * when no checkpoint was taken yet.
+     */
+    public void readCheckpoint(Consumer<? super T> load) throws IOException {
+        lock.lock();
+        try {
+            check();
+            Path checkpoint = checkpointFile(checkpointGeneration);
+            if (checkpointGeneration >= 0) {
+                try (SortedKeyFile.Reader<T> reader = SortedKeyFile.open(checkpoint.toString(), codec)) {
+                    checkpointKeys = reader.count();
+                    reader.forEachRemaining(load);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every record logged since the last checkpoint to {@code replay} in the order it was
+     * appended. Recovery is {@link #readCheckpoint} followed by this.
+     */
+    public void replay(BiConsumer<Operation, ? super T> replay) throws IOException {
+        lock.lock();
+        try {
+            check();
+            sync(appended, false);
+            scan(replay);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the log from the start, passing each intact record to {@code replay} when it is not
+     * null, and returns the offset just past the last intact record.
+     */
+    private long scan(BiConsumer<Operation, ? super T> replay) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Not a write-ahead log");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a write-ahead log");
+        }
+        if (header.get(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported write-ahead log version " + header.get(Integer.BYTES));
+        }
+        generation = header.getLong(GENERATION_OFFSET);
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.limit(0);
+        long position = HEADER_SIZE;
+        long end = HEADER_SIZE;
+        logged = 0;
+        while (true) {
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int mark = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > MAX_RECORD) {
+                    return end;
+                }
+                if (buffer.remaining() < length) {
+                    buffer.position(mark);
+                    if (RECORD_HEADER + length > buffer.capacity()) {
+                        buffer = ByteBuffer.allocate(RECORD_HEADER + length).put(buffer).flip();
+                    }
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.array(), buffer.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    return end;
+                }
+                if (replay != null) {
+                    ByteBuffer record = buffer.slice(buffer.position(), length);
+                    try {
+                        Operation operation = Operation.values()[record.get()];
+                        replay.accept(operation, codec.decode(null, record));
+                    } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+                        return end;
+                    }
+                }
+                buffer.position(buffer.position() + length);
+                end += RECORD_HEADER + length;
+                ++logged;
+            }
+
+            buffer.compact();
+            int read = channel.read(buffer, position);
+            buffer.flip();
+            if (read < 0) {
+                return end;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Number of records appended since the log was opened.
+     */
+    public long getAppendedCount() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of times the log was forced to disk since it was opened. Under
+     * {@link FsyncPolicy#ALWAYS} the ratio of appends to syncs is the group commit batch size.
+     */
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                if (failure == null) {
+                    sync(appended, true);
+                }
+            } finally {
+                closed = true;
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
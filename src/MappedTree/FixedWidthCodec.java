@@ -0,0 +1,54 @@
+package MappedTree;
+
+import java.nio.ByteBuffer;
+
+public interface FixedWidthCodec<T> {
+
+    int width();
+
+    void put(ByteBuffer buffer, int offset, T key);
+
+    T get(ByteBuffer buffer, int offset);
+
+    FixedWidthCodec<Long> LONG = new FixedWidthCodec<>() {
+        public int width() {
+            return Long.BYTES;
+        }
+
+        public void put(ByteBuffer buffer, int offset, Long key) {
+            buffer.putLong(offset, key);
+        }
+
+        public Long get(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    FixedWidthCodec<Integer> INTEGER = new FixedWidthCodec<>() {
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        public void put(ByteBuffer buffer, int offset, Integer key) {
+            buffer.putInt(offset, key);
+        }
+
+        public Integer get(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    FixedWidthCodec<Double> DOUBLE = new FixedWidthCodec<>() {
+        public int width() {
+            return Double.BYTES;
+        }
+
+        public void put(ByteBuffer buffer, int offset, Double key) {
+            buffer.putDouble(offset, key);
+        }
+
+        public Double get(ByteBuffer buffer, int offset) {
+            return buffer.getDouble(offset);
+        }
+    };
+}
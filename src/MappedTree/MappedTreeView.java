@@ -0,0 +1,233 @@
+package MappedTree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only view of a sorted key set stored in a memory-mapped file in Eytzinger (BFS) order:
+ * slot k holds the root of a subtree whose children are in slots 2k and 2k + 1. Opening the view
+ * only maps the file, and every query reads straight from the mapping.
+ */
+public final class MappedTreeView<T> implements Iterable<T> {
+    private static final int MAGIC = 0x45595432;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private final MappedByteBuffer buffer;
+    private final FixedWidthCodec<T> codec;
+    private final Comparator<? super T> cmp;
+    private final int width;
+    private final int size;
+
+    private MappedTreeView(MappedByteBuffer buffer, FixedWidthCodec<T> codec, Comparator<? super T> cmp) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a mapped tree file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported mapped tree version " + buffer.getInt(4));
+        }
+        if (buffer.getInt(8) != codec.width()) {
+            throw new IOException("Key width " + buffer.getInt(8) + " does not match codec width " + codec.width());
+        }
+        this.buffer = buffer;
+        this.codec = codec;
+        this.cmp = cmp;
+        this.width = codec.width();
+        this.size = buffer.getInt(12);
+    }
+
+    public static <T extends Comparable<? super T>> MappedTreeView<T> open(String filePath, FixedWidthCodec<T> codec) throws IOException {
+        return open(filePath, codec, Comparator.naturalOrder());
+    }
+
+    public static <T> MappedTreeView<T> open(String filePath, FixedWidthCodec<T> codec, Comparator<? super T> cmp) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            return new MappedTreeView<>(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), codec, cmp);
+        }
+    }
+
+    /**
+     * Writes keys given in ascending order (for example the output of {@code toSortedArray()}) to
+     * {@code filePath} in Eytzinger order.
+     */
+    public static <T> void write(String filePath, Object[] sorted, FixedWidthCodec<T> codec) throws IOException {
+        long length = HEADER_SIZE + (long) sorted.length * codec.width();
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many keys for a single mapping: " + sorted.length);
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            out.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, codec.width()).putInt(12, sorted.length);
+            fill(out, codec, sorted, new int[1], 1);
+            out.force();
+        }
+    }
+
+    private static <T> void fill(ByteBuffer out, FixedWidthCodec<T> codec, Object[] sorted, int[] next, int k) {
+        if (k > sorted.length) {
+            return;
+        }
+        fill(out, codec, sorted, next, 2 * k);
+        codec.put(out, HEADER_SIZE + (k - 1) * codec.width(), (T) sorted[next[0]++]);
+        fill(out, codec, sorted, next, 2 * k + 1);
+    }
+
+    private T get(int k) {
+        return codec.get(buffer, HEADER_SIZE + (k - 1) * width);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean search(T key) {
+        return indexOf(key) != 0;
+    }
+
+    private int indexOf(T key) {
+        int k = 1;
+        while (k <= size) {
+            int c = cmp.compare(key, get(k));
+            if (c == 0) {
+                return k;
+            }
+            k = 2 * k + (c > 0 ? 1 : 0);
+        }
+        return 0;
+    }
+
+    public T findMinData() {
+        return size == 0 ? null : get(first());
+    }
+
+    public T findMaxData() {
+        return size == 0 ? null : get(last());
+    }
+
+    private int first() {
+        int k = 1;
+        while (2 * k <= size) {
+            k = 2 * k;
+        }
+        return k;
+    }
+
+    private int last() {
+        int k = 1;
+        while (2 * k + 1 <= size) {
+            k = 2 * k + 1;
+        }
+        return k;
+    }
+
+    public T ceiling(T key) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (cmp.compare(get(k), key) < 0 ? 1 : 0);
+        }
+        k >>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k == 0 ? null : get(k);
+    }
+
+    public T higher(T key) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (cmp.compare(get(k), key) <= 0 ? 1 : 0);
+        }
+        k >>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k == 0 ? null : get(k);
+    }
+
+    public T floor(T key) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (cmp.compare(get(k), key) <= 0 ? 1 : 0);
+        }
+        k >>= Integer.numberOfTrailingZeros(k) + 1;
+        return k == 0 ? null : get(k);
+    }
+
+    public T lower(T key) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (cmp.compare(get(k), key) < 0 ? 1 : 0);
+        }
+        k >>= Integer.numberOfTrailingZeros(k) + 1;
+        return k == 0 ? null : get(k);
+    }
+
+    public T getSuccessorData(T key) {
+        int k = indexOf(key);
+        if (k == 0) {
+            return null;
+        }
+        k = successor(k);
+        return k == 0 ? null : get(k);
+    }
+
+    public T getPredecessorData(T key) {
+        int k = indexOf(key);
+        if (k == 0) {
+            return null;
+        }
+        k = predecessor(k);
+        return k == 0 ? null : get(k);
+    }
+
+    private int successor(int k) {
+        if (2 * k + 1 <= size) {
+            k = 2 * k + 1;
+            while (2 * k <= size) {
+                k = 2 * k;
+            }
+            return k;
+        }
+        return k >> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    private int predecessor(int k) {
+        if (2 * k <= size) {
+            k = 2 * k;
+            while (2 * k + 1 <= size) {
+                k = 2 * k + 1;
+            }
+            return k;
+        }
+        return k >> (Integer.numberOfTrailingZeros(k) + 1);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int next = size == 0 ? 0 : first();
+
+            @Override
+            public boolean hasNext() {
+                return next != 0;
+            }
+
+            @Override
+            public T next() {
+                if (next == 0) {
+                    throw new NoSuchElementException();
+                }
+                T key = get(next);
+                next = successor(next);
+                return key;
+            }
+        };
+    }
+}
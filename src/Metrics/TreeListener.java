@@ -0,0 +1,21 @@
+package Metrics;
+
+/**
+ * Receives one callback per tree operation. Trees keep their counters in locals or plain fields
+ * and only call the listener when one is set, so an unset listener costs a null check.
+ */
+public interface TreeListener {
+
+    enum Operation {
+        INSERT, DELETE, SEARCH
+    }
+
+    /**
+     * @param comparisons key comparisons made by the operation
+     * @param depth       nodes on the path the operation walked down
+     * @param rotations   rotations done while rebalancing, 0 for searches and unbalanced trees
+     * @param recolors    node colour changes, red-black trees only
+     * @param fixups      iterations of the red-black fix-up loops
+     */
+    void onOperation(Operation operation, int comparisons, int depth, int rotations, int recolors, int fixups);
+}
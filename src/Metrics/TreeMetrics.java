@@ -0,0 +1,179 @@
+package Metrics;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * {@link TreeListener} that records every callback into histograms and can publish them over JMX
+ * under {@code Trees:type=TreeMetrics,name=<name>}. One instance may be shared by several trees.
+ */
+public class TreeMetrics implements TreeListener, TreeMetricsMBean {
+
+    private final LogHistogram searchComparisons = new LogHistogram();
+    private final LogHistogram insertComparisons = new LogHistogram();
+    private final LogHistogram deleteComparisons = new LogHistogram();
+    private final LogHistogram depth = new LogHistogram();
+    private final LogHistogram rotations = new LogHistogram();
+    private final LogHistogram recolors = new LogHistogram();
+    private final LogHistogram fixups = new LogHistogram();
+
+    private ObjectName objectName;
+
+    @Override
+    public void onOperation(Operation operation, int comparisons, int depth, int rotations, int recolors, int fixups) {
+        this.depth.record(depth);
+        switch (operation) {
+            case SEARCH:
+                searchComparisons.record(comparisons);
+                return;
+            case INSERT:
+                insertComparisons.record(comparisons);
+                break;
+            case DELETE:
+                deleteComparisons.record(comparisons);
+                break;
+        }
+        this.rotations.record(rotations);
+        this.recolors.record(recolors);
+        this.fixups.record(fixups);
+    }
+
+    public synchronized ObjectName register(String name) throws JMException {
+        if (objectName != null) {
+            throw new IllegalStateException("Already registered as " + objectName);
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("Trees:type=TreeMetrics,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        this.objectName = objectName;
+        return objectName;
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    public LogHistogram searchComparisons() {
+        return searchComparisons;
+    }
+
+    public LogHistogram insertComparisons() {
+        return insertComparisons;
+    }
+
+    public LogHistogram deleteComparisons() {
+        return deleteComparisons;
+    }
+
+    public LogHistogram depth() {
+        return depth;
+    }
+
+    public LogHistogram rotations() {
+        return rotations;
+    }
+
+    public LogHistogram recolors() {
+        return recolors;
+    }
+
+    public LogHistogram fixups() {
+        return fixups;
+    }
+
+    @Override
+    public long getInserts() {
+        return insertComparisons.getTotalCount();
+    }
+
+    @Override
+    public long getDeletes() {
+        return deleteComparisons.getTotalCount();
+    }
+
+    @Override
+    public long getSearches() {
+        return searchComparisons.getTotalCount();
+    }
+
+    @Override
+    public double getMeanSearchComparisons() {
+        return searchComparisons.getMean();
+    }
+
+    @Override
+    public long getP99SearchComparisons() {
+        return searchComparisons.getValueAtPercentile(99);
+    }
+
+    @Override
+    public double getMeanInsertComparisons() {
+        return insertComparisons.getMean();
+    }
+
+    @Override
+    public double getMeanDeleteComparisons() {
+        return deleteComparisons.getMean();
+    }
+
+    @Override
+    public double getMeanDepth() {
+        return depth.getMean();
+    }
+
+    @Override
+    public long getP50Depth() {
+        return depth.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getP99Depth() {
+        return depth.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return depth.getMaxValue();
+    }
+
+    @Override
+    public long getRotations() {
+        return rotations.getTotalSum();
+    }
+
+    @Override
+    public long getMaxRotationsPerUpdate() {
+        return rotations.getMaxValue();
+    }
+
+    @Override
+    public long getRecolors() {
+        return recolors.getTotalSum();
+    }
+
+    @Override
+    public long getFixupIterations() {
+        return fixups.getTotalSum();
+    }
+
+    @Override
+    public long getMaxFixupIterationsPerUpdate() {
+        return fixups.getMaxValue();
+    }
+
+    @Override
+    public void reset() {
+        searchComparisons.reset();
+        insertComparisons.reset();
+        deleteComparisons.reset();
+        depth.reset();
+        rotations.reset();
+        recolors.reset();
+        fixups.reset();
+    }
+}
@@ -0,0 +1,38 @@
+package Metrics;
+
+public interface TreeMetricsMBean {
+
+    long getInserts();
+
+    long getDeletes();
+
+    long getSearches();
+
+    double getMeanSearchComparisons();
+
+    long getP99SearchComparisons();
+
+    double getMeanInsertComparisons();
+
+    double getMeanDeleteComparisons();
+
+    double getMeanDepth();
+
+    long getP50Depth();
+
+    long getP99Depth();
+
+    long getMaxDepth();
+
+    long getRotations();
+
+    long getMaxRotationsPerUpdate();
+
+    long getRecolors();
+
+    long getFixupIterations();
+
+    long getMaxFixupIterationsPerUpdate();
+
+    void reset();
+}
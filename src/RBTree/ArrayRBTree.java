@@ -0,0 +1,721 @@
+package RBTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Red-black tree that keeps its nodes in parallel arrays instead of one object per node. It
+ * offers the core of {@link RBTree}: search, insert, delete, sorted iteration, streams and range
+ * views, ordered by an optional {@link Comparator}. Batch updates, multisets, split and join,
+ * cursors, listeners and the visitor traversals exist only on {@link RBTree}.
+ *
+ * A node is an index: {@code keys[i]} is its item, {@code left[i]} and {@code right[i]} its
+ * children, and {@code parentColor[i]} its parent index shifted left by one with the colour in
+ * the low bit. Index 0 is a shared black nil sentinel. Deleted slots are chained through
+ * {@code left} into a free list and reused before the arrays grow.
+ */
+public class ArrayRBTree<T extends Comparable<T>> implements Iterable<T> {
+
+    private static final int NIL = 0;
+    private static final int BLACK_BIT = 1;
+    private static final int CHUNK = 1024;
+    private static final int MAX_HEIGHT = 64;
+
+    private final Comparator<? super T> cmp;
+
+    private Object[] keys;
+    private int[] left;
+    private int[] right;
+    private int[] parentColor;
+    private int root = NIL;
+    private int next = 1;
+    private int free = NIL;
+    private int nodesCount;
+
+    public ArrayRBTree (T item) {
+        this();
+        this.insert(item);
+    }
+
+    public ArrayRBTree () {
+        this((Comparator<? super T>) null);
+    }
+
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public ArrayRBTree (Comparator<? super T> cmp) {
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+        allocateArrays(CHUNK);
+    }
+
+    private void allocateArrays (int capacity) {
+        keys = new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parentColor = new int[capacity];
+        parentColor[NIL] = BLACK_BIT;
+    }
+
+    public static <T extends Comparable<T>> ArrayRBTree<T> fromSorted (Object[] sorted) {
+        return fromSorted(null, sorted);
+    }
+
+    public static <T extends Comparable<T>> ArrayRBTree<T> fromSorted (Comparator<? super T> cmp, Object[] sorted) {
+        ArrayRBTree<T> tree = new ArrayRBTree<T>(cmp);
+        for (int i = 1; i < sorted.length; ++i) {
+            if (tree.cmp.compare((T) sorted[i - 1], (T) sorted[i]) > 0) {
+                throw new IllegalArgumentException("Input is not sorted in ascending order at index " + i);
+            }
+        }
+
+        tree.allocateArrays(Math.max(CHUNK, sorted.length + 1));
+        if (sorted.length > 0) {
+            int redDepth = 31 - Integer.numberOfLeadingZeros(sorted.length);
+            tree.root = tree.build(sorted, 0, sorted.length - 1, NIL, 0, redDepth);
+        }
+        tree.nodesCount = sorted.length;
+        return tree;
+    }
+
+    public static <T extends Comparable<T>> ArrayRBTree<T> fromSorted (Iterator<? extends T> sorted) {
+        List<Object> items = new ArrayList<>();
+        while (sorted.hasNext()) {
+            items.add(sorted.next());
+        }
+        return fromSorted(items.toArray());
+    }
+
+    private int build (Object[] sorted, int lo, int hi, int parent, int depth, int redDepth) {
+        if (lo > hi) {
+            return NIL;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int node = next++;
+        keys[node] = sorted[mid];
+        parentColor[node] = parent << 1 | (depth == redDepth && depth > 0 ? 0 : BLACK_BIT);
+        left[node] = build(sorted, lo, mid - 1, node, depth + 1, redDepth);
+        right[node] = build(sorted, mid + 1, hi, node, depth + 1, redDepth);
+        return node;
+    }
+
+    private T key (int node) {
+        return (T) keys[node];
+    }
+
+    private int parent (int node) {
+        return parentColor[node] >>> 1;
+    }
+
+    private void setParent (int node, int parent) {
+        parentColor[node] = parent << 1 | (parentColor[node] & BLACK_BIT);
+    }
+
+    private boolean isBlack (int node) {
+        return (parentColor[node] & BLACK_BIT) != 0;
+    }
+
+    private void setBlack (int node) {
+        parentColor[node] |= BLACK_BIT;
+    }
+
+    private void setRed (int node) {
+        parentColor[node] &= ~BLACK_BIT;
+    }
+
+    private int allocate (T item) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left[node];
+        } else {
+            if (next == keys.length) {
+                int capacity = keys.length + Math.max(CHUNK, keys.length >> 1);
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                parentColor = Arrays.copyOf(parentColor, capacity);
+            }
+            node = next++;
+        }
+
+        keys[node] = item;
+        left[node] = NIL;
+        right[node] = NIL;
+        parentColor[node] = 0;
+        return node;
+    }
+
+    private void release (int node) {
+        keys[node] = null;
+        left[node] = free;
+        free = node;
+    }
+
+    public boolean search (T item) {
+        return findNode(item) != NIL;
+    }
+
+    private int findNode (T item) {
+        int node = root;
+        while (node != NIL) {
+            int c = cmp.compare(item, key(node));
+            if (c == 0) {
+                return node;
+            }
+            node = c < 0 ? left[node] : right[node];
+        }
+        return NIL;
+    }
+
+    private void rotateLeft (int node) {
+        int rightChild = right[node];
+        right[node] = left[rightChild];
+        if (left[rightChild] != NIL) {
+            setParent(left[rightChild], node);
+        }
+        replaceParentChild(parent(node), node, rightChild);
+        left[rightChild] = node;
+        setParent(node, rightChild);
+    }
+
+    private void rotateRight (int node) {
+        int leftChild = left[node];
+        left[node] = right[leftChild];
+        if (right[leftChild] != NIL) {
+            setParent(right[leftChild], node);
+        }
+        replaceParentChild(parent(node), node, leftChild);
+        right[leftChild] = node;
+        setParent(node, leftChild);
+    }
+
+    private void replaceParentChild (int parent, int oldChild, int newChild) {
+        if (parent == NIL) {
+            root = newChild;
+        } else if (left[parent] == oldChild) {
+            left[parent] = newChild;
+        } else {
+            right[parent] = newChild;
+        }
+        setParent(newChild, parent);
+    }
+
+    public void insert (T item) {
+        int parent = NIL;
+        int node = root;
+        int c = 0;
+        while (node != NIL) {
+            parent = node;
+            c = cmp.compare(item, key(node));
+            node = c < 0 ? left[node] : right[node];
+        }
+
+        int newNode = allocate(item);
+        ++nodesCount;
+        setParent(newNode, parent);
+        if (parent == NIL) {
+            root = newNode;
+        } else if (c < 0) {
+            left[parent] = newNode;
+        } else {
+            right[parent] = newNode;
+        }
+
+        fixPropertiesAfterInsertion(newNode);
+    }
+
+    private void fixPropertiesAfterInsertion (int node) {
+        while (!isBlack(parent(node))) {
+            int parent = parent(node);
+            int granny = parent(parent);
+            if (parent == left[granny]) {
+                int uncle = right[granny];
+                if (!isBlack(uncle)) {
+                    setBlack(parent);
+                    setBlack(uncle);
+                    setRed(granny);
+                    node = granny;
+                } else {
+                    if (node == right[parent]) {
+                        node = parent;
+                        rotateLeft(node);
+                        parent = parent(node);
+                    }
+                    setBlack(parent);
+                    setRed(granny);
+                    rotateRight(granny);
+                }
+            } else {
+                int uncle = left[granny];
+                if (!isBlack(uncle)) {
+                    setBlack(parent);
+                    setBlack(uncle);
+                    setRed(granny);
+                    node = granny;
+                } else {
+                    if (node == left[parent]) {
+                        node = parent;
+                        rotateRight(node);
+                        parent = parent(node);
+                    }
+                    setBlack(parent);
+                    setRed(granny);
+                    rotateLeft(granny);
+                }
+            }
+        }
+        setBlack(root);
+    }
+
+    public void delete (T item) {
+        int node = findNode(item);
+        if (node == NIL) {
+            return;
+        }
+
+        int moveUpNode;
+        boolean deletedNodeBlack = isBlack(node);
+        if (left[node] == NIL) {
+            moveUpNode = right[node];
+            replaceParentChild(parent(node), node, moveUpNode);
+        } else if (right[node] == NIL) {
+            moveUpNode = left[node];
+            replaceParentChild(parent(node), node, moveUpNode);
+        } else {
+            int successor = findMinNode(right[node]);
+            deletedNodeBlack = isBlack(successor);
+            moveUpNode = right[successor];
+            if (parent(successor) == node) {
+                setParent(moveUpNode, successor);
+            } else {
+                replaceParentChild(parent(successor), successor, moveUpNode);
+                right[successor] = right[node];
+                setParent(right[successor], successor);
+            }
+            replaceParentChild(parent(node), node, successor);
+            left[successor] = left[node];
+            setParent(left[successor], successor);
+            if (isBlack(node)) {
+                setBlack(successor);
+            } else {
+                setRed(successor);
+            }
+        }
+
+        if (deletedNodeBlack) {
+            fixPropertiesAfterDeletion(moveUpNode);
+        }
+        release(node);
+        --nodesCount;
+    }
+
+    private void fixPropertiesAfterDeletion (int node) {
+        while (node != root && isBlack(node)) {
+            int parent = parent(node);
+            if (node == left[parent]) {
+                int sibling = right[parent];
+                if (!isBlack(sibling)) {
+                    setBlack(sibling);
+                    setRed(parent);
+                    rotateLeft(parent);
+                    sibling = right[parent];
+                }
+                if (isBlack(left[sibling]) && isBlack(right[sibling])) {
+                    setRed(sibling);
+                    node = parent;
+                } else {
+                    if (isBlack(right[sibling])) {
+                        setBlack(left[sibling]);
+                        setRed(sibling);
+                        rotateRight(sibling);
+                        sibling = right[parent];
+                    }
+                    copyColor(parent, sibling);
+                    setBlack(parent);
+                    setBlack(right[sibling]);
+                    rotateLeft(parent);
+                    node = root;
+                }
+            } else {
+                int sibling = left[parent];
+                if (!isBlack(sibling)) {
+                    setBlack(sibling);
+                    setRed(parent);
+                    rotateRight(parent);
+                    sibling = left[parent];
+                }
+                if (isBlack(left[sibling]) && isBlack(right[sibling])) {
+                    setRed(sibling);
+                    node = parent;
+                } else {
+                    if (isBlack(left[sibling])) {
+                        setBlack(right[sibling]);
+                        setRed(sibling);
+                        rotateLeft(sibling);
+                        sibling = left[parent];
+                    }
+                    copyColor(parent, sibling);
+                    setBlack(parent);
+                    setBlack(left[sibling]);
+                    rotateRight(parent);
+                    node = root;
+                }
+            }
+        }
+        setBlack(node);
+    }
+
+    private void copyColor (int from, int to) {
+        if (isBlack(from)) {
+            setBlack(to);
+        } else {
+            setRed(to);
+        }
+    }
+
+    private int findMinNode (int node) {
+        while (left[node] != NIL) {
+            node = left[node];
+        }
+        return node;
+    }
+
+    private int findMaxNode (int node) {
+        while (right[node] != NIL) {
+            node = right[node];
+        }
+        return node;
+    }
+
+    private int successorOf (int node) {
+        if (right[node] != NIL) {
+            return findMinNode(right[node]);
+        }
+        int parent = parent(node);
+        while (parent != NIL && node == right[parent]) {
+            node = parent;
+            parent = parent(node);
+        }
+        return parent;
+    }
+
+    private int predecessorOf (int node) {
+        if (left[node] != NIL) {
+            return findMaxNode(left[node]);
+        }
+        int parent = parent(node);
+        while (parent != NIL && node == left[parent]) {
+            node = parent;
+            parent = parent(node);
+        }
+        return parent;
+    }
+
+    public int size () {
+        return nodesCount;
+    }
+
+    public void clear () {
+        allocateArrays(CHUNK);
+        root = NIL;
+        next = 1;
+        free = NIL;
+        nodesCount = 0;
+    }
+
+    public Object[] toSortedArray () {
+        List<Object> list = new ArrayList<>();
+        for (T item : this) {
+            list.add(item);
+        }
+        return list.toArray();
+    }
+
+    @Override
+    public Iterator<T> iterator () {
+        return new SortedIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator () {
+        return new TreeSpliterator(root, NIL, Long.MAX_VALUE);
+    }
+
+    public Stream<T> stream () {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream () {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    private class SortedIterator implements Iterator<T> {
+        private int next = root == NIL ? NIL : findMinNode(root);
+
+        @Override
+        public boolean hasNext () {
+            return next != NIL;
+        }
+
+        @Override
+        public T next () {
+            if (next == NIL) {
+                throw new NoSuchElementException();
+            }
+            int node = next;
+            next = successorOf(node);
+            return key(node);
+        }
+    }
+
+    /**
+     * Walks {@code subtree} in order and then {@code last}. Splitting hands the left subtree and
+     * its root to a new spliterator and keeps the right subtree.
+     */
+    private class TreeSpliterator implements Spliterator<T> {
+        private int subtree;
+        private int last;
+        private int[] stack;
+        private int top;
+        private long estimate;
+
+        TreeSpliterator (int subtree, int last, long estimate) {
+            this.subtree = subtree;
+            this.last = last;
+            this.estimate = estimate;
+        }
+
+        private void pushLeft (int node) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = left[node];
+            }
+        }
+
+        @Override
+        public boolean tryAdvance (Consumer<? super T> action) {
+            if (stack == null) {
+                stack = new int[MAX_HEIGHT];
+                pushLeft(subtree);
+                subtree = NIL;
+            }
+
+            int node;
+            if (top > 0) {
+                node = stack[--top];
+                pushLeft(right[node]);
+            } else if (last != NIL) {
+                node = last;
+                last = NIL;
+            } else {
+                return false;
+            }
+
+            action.accept(key(node));
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit () {
+            int node = subtree;
+            if (stack != null || node == NIL || (left[node] == NIL && right[node] == NIL)) {
+                return null;
+            }
+
+            estimate >>>= 1;
+            subtree = right[node];
+            return new TreeSpliterator(left[node], node, estimate);
+        }
+
+        @Override
+        public long estimateSize () {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics () {
+            return ORDERED | SORTED | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator () {
+            return cmp == Comparator.naturalOrder() ? null : cmp;
+        }
+    }
+
+    public RangeView subSet (T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+        if (cmp.compare(lo, hi) > 0) {
+            throw new IllegalArgumentException("lo > hi");
+        }
+        return new RangeView(lo, loInclusive, hi, hiInclusive, false);
+    }
+
+    public RangeView subSet (T lo, T hi) {
+        return subSet(lo, true, hi, false);
+    }
+
+    public RangeView headSet (T hi, boolean inclusive) {
+        return new RangeView(null, false, hi, inclusive, false);
+    }
+
+    public RangeView tailSet (T lo, boolean inclusive) {
+        return new RangeView(lo, inclusive, null, false, false);
+    }
+
+    /**
+     * Live view of the keys between two optional bounds. Iteration descends once to the first key
+     * in range and then follows parent links, so a view over k keys costs O(log n + k).
+     */
+    public class RangeView implements Iterable<T> {
+        private final T lo;
+        private final boolean loInclusive;
+        private final T hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        private RangeView (T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending) {
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow (T item) {
+            if (lo == null) {
+                return false;
+            }
+            int c = cmp.compare(item, lo);
+            return c < 0 || (c == 0 && !loInclusive);
+        }
+
+        private boolean tooHigh (T item) {
+            if (hi == null) {
+                return false;
+            }
+            int c = cmp.compare(item, hi);
+            return c > 0 || (c == 0 && !hiInclusive);
+        }
+
+        private int lowest () {
+            int node = root;
+            int lowest = NIL;
+            while (node != NIL) {
+                if (tooLow(key(node))) {
+                    node = right[node];
+                } else {
+                    lowest = node;
+                    node = left[node];
+                }
+            }
+            return lowest == NIL || tooHigh(key(lowest)) ? NIL : lowest;
+        }
+
+        private int highest () {
+            int node = root;
+            int highest = NIL;
+            while (node != NIL) {
+                if (tooHigh(key(node))) {
+                    node = left[node];
+                } else {
+                    highest = node;
+                    node = right[node];
+                }
+            }
+            return highest == NIL || tooLow(key(highest)) ? NIL : highest;
+        }
+
+        public RangeView descending () {
+            return new RangeView(lo, loInclusive, hi, hiInclusive, !descending);
+        }
+
+        public int count () {
+            int count = 0;
+            for (Iterator<T> it = iterator(); it.hasNext(); it.next()) {
+                ++count;
+            }
+            return count;
+        }
+
+        public boolean isEmpty () {
+            return lowest() == NIL;
+        }
+
+        @Override
+        public Iterator<T> iterator () {
+            return new RangeIterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator () {
+            int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+            if (!descending) {
+                characteristics |= Spliterator.SORTED;
+            }
+            return Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+        }
+
+        public Stream<T> stream () {
+            return StreamSupport.stream(spliterator(), false);
+        }
+
+        private class RangeIterator implements Iterator<T> {
+            private int next = descending ? highest() : lowest();
+
+            @Override
+            public boolean hasNext () {
+                return next != NIL;
+            }
+
+            @Override
+            public T next () {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+                T item = key(next);
+                next = descending ? predecessorOf(next) : successorOf(next);
+                if (next != NIL && (descending ? tooLow(key(next)) : tooHigh(key(next)))) {
+                    next = NIL;
+                }
+                return item;
+            }
+        }
+    }
+
+    public void levelOrderTraversal () {
+        if (root == NIL) {
+            return;
+        }
+
+        int[] queue = new int[next];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                int node = queue[head++];
+                System.out.print(key(node) + " " + (isBlack(node) ? "BLACK" : "RED") + "   ");
+                if (left[node] != NIL) {
+                    queue[tail++] = left[node];
+                }
+                if (right[node] != NIL) {
+                    queue[tail++] = right[node];
+                }
+            }
+            System.out.println();
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package RBTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe {@link RBTree}. Writers take the write lock of a {@link StampedLock}. Readers first
+ * run lock-free under an optimistic stamp and only take the read lock when a writer invalidated
+ * the stamp. An optimistic reader may observe a half-rotated tree, so its walks are bounded and
+ * any exception is treated the same as a failed validation; nothing it read is used unless the
+ * stamp validates.
+ */
+public class ConcurrentRBTree<T extends Comparable<T>> {
+
+    private static final int CHUNK = 64;
+    private static final int SEARCH_BUDGET = 128;
+    private static final int CHUNK_BUDGET = SEARCH_BUDGET + 4 * SEARCH_BUDGET * CHUNK;
+
+    private final Comparator<? super T> cmp;
+    private final RBTree<T> tree;
+    private final StampedLock lock = new StampedLock();
+
+    public ConcurrentRBTree () {
+        this(null);
+    }
+
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public ConcurrentRBTree (Comparator<? super T> cmp) {
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+        this.tree = new RBTree<T>(this.cmp);
+    }
+
+    public void insert (T item) {
+        long stamp = lock.writeLock();
+        try {
+            tree.insert(item);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void delete (T item) {
+        long stamp = lock.writeLock();
+        try {
+            tree.delete(item);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean search (T item) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int found;
+            try {
+                found = tree.search(item, SEARCH_BUDGET);
+            } catch (RuntimeException e) {
+                found = -1;
+            }
+            if (found >= 0 && lock.validate(stamp)) {
+                return found == 1;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return tree.search(item);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Passes every key in the range to {@code action} in ascending order. A null bound is
+     * unbounded. Keys are read in chunks, each taken from one consistent version of the tree, so
+     * {@code action} never runs while a lock is held and writers are not blocked for the whole
+     * scan. Writes that land between chunks may or may not be seen.
+     */
+    public void forEachInRange (T lo, boolean loInclusive, T hi, boolean hiInclusive, Consumer<? super T> action) {
+        Object[] chunk = new Object[CHUNK];
+        T from = lo;
+        int skip = lo != null && !loInclusive ? Integer.MAX_VALUE : 0;
+
+        while (true) {
+            int count = collect(from, skip, hi, hiInclusive, chunk);
+            for (int i = 0; i < count; ++i) {
+                action.accept((T) chunk[i]);
+            }
+            if (count < CHUNK) {
+                return;
+            }
+
+            T last = (T) chunk[count - 1];
+            int equal = 0;
+            while (equal < count && cmp.compare((T) chunk[count - 1 - equal], last) == 0) {
+                ++equal;
+            }
+            if (equal == count && from != null && cmp.compare(from, last) == 0) {
+                skip += equal;
+            } else {
+                skip = equal;
+            }
+            from = last;
+        }
+    }
+
+    private int collect (T from, int skip, T hi, boolean hiInclusive, Object[] chunk) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int count;
+            try {
+                count = tree.collect(from, skip, hi, hiInclusive, chunk, CHUNK_BUDGET);
+            } catch (RuntimeException e) {
+                count = -1;
+            }
+            if (count >= 0 && lock.validate(stamp)) {
+                return count;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return tree.collect(from, skip, hi, hiInclusive, chunk, Integer.MAX_VALUE);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Object[] toSortedArray () {
+        List<Object> list = new ArrayList<>();
+        forEachInRange(null, true, null, true, list::add);
+        return list.toArray();
+    }
+
+}
@@ -0,0 +1,47 @@
+package RBTree;
+
+import java.util.Objects;
+
+/**
+ * Closed interval {@code [lo, hi]} stored in an {@link IntervalTree}.
+ */
+public final class Interval<T extends Comparable<T>> {
+
+    private final T lo;
+    private final T hi;
+
+    public Interval (T lo, T hi) {
+        this.lo = Objects.requireNonNull(lo);
+        this.hi = Objects.requireNonNull(hi);
+    }
+
+    public T getLo () {
+        return lo;
+    }
+
+    public T getHi () {
+        return hi;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Interval)) {
+            return false;
+        }
+        Interval<?> other = (Interval<?>) o;
+        return lo.equals(other.lo) && hi.equals(other.hi);
+    }
+
+    @Override
+    public int hashCode () {
+        return 31 * lo.hashCode() + hi.hashCode();
+    }
+
+    @Override
+    public String toString () {
+        return "[" + lo + ", " + hi + "]";
+    }
+}
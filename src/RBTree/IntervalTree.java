@@ -0,0 +1,482 @@
+package RBTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Red-black tree of closed intervals ordered by their low endpoint, then their high endpoint.
+ * Every node also keeps the largest high endpoint in its subtree, so overlap and stabbing
+ * queries skip any subtree that ends before the query starts. The same interval may be stored
+ * more than once.
+ */
+public class IntervalTree<T extends Comparable<T>> implements Iterable<Interval<T>> {
+
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+    private final Comparator<? super T> cmp;
+    private Node<T> root;
+    private int nodesCount;
+
+    public IntervalTree () {
+        this.cmp = Comparator.naturalOrder();
+    }
+
+    /**
+     * Orders endpoints by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public IntervalTree (Comparator<? super T> cmp) {
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+    }
+
+    private static class Node<T extends Comparable<T>> {
+        Interval<T> interval;
+        T max;
+        Node<T> parent;
+        Node<T> left;
+        Node<T> right;
+        boolean color;
+
+        Node () { }
+        Node (Interval<T> interval) {
+            this.interval = interval;
+            this.max = interval.getHi();
+            this.color = RED;
+        }
+
+        public String toString () {
+            return interval + " max " + max + " " + (color ? "BLACK" : "RED");
+        }
+    }
+
+    private static class Nil<T extends Comparable<T>> extends Node<T> {
+        Nil () {
+            super();
+            this.color = BLACK;
+        }
+    }
+
+    public Interval<T> insert (T lo, T hi) {
+        Interval<T> interval = new Interval<>(lo, hi);
+        insert(interval);
+        return interval;
+    }
+
+    public void insert (Interval<T> interval) {
+        if (cmp.compare(interval.getLo(), interval.getHi()) > 0) {
+            throw new IllegalArgumentException("Interval " + interval + " ends before it starts");
+        }
+
+        T hi = interval.getHi();
+        Node<T> parent = null;
+        Node<T> node = root;
+        int c = 0;
+        while (node != null) {
+            if (cmp.compare(hi, node.max) > 0) {
+                node.max = hi;
+            }
+            parent = node;
+            c = compare(interval, node.interval);
+            node = c < 0 ? node.left : node.right;
+        }
+
+        Node<T> newNode = new Node<>(interval);
+        if (parent == null) {
+            root = newNode;
+        } else if (c < 0) {
+            parent.left = newNode;
+        } else {
+            parent.right = newNode;
+        }
+        newNode.parent = parent;
+        ++nodesCount;
+        fixPropertiesAfterInsertion(newNode);
+    }
+
+    /**
+     * Removes one copy of {@code interval}; returns false if it is not stored.
+     */
+    public boolean delete (Interval<T> interval) {
+        Node<T> node = root;
+        while (node != null) {
+            int c = compare(interval, node.interval);
+            if (c == 0) {
+                break;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+        if (node == null) {
+            return false;
+        }
+
+        deleteNode(node);
+        --nodesCount;
+        return true;
+    }
+
+    public boolean delete (T lo, T hi) {
+        return delete(new Interval<>(lo, hi));
+    }
+
+    public boolean contains (Interval<T> interval) {
+        Node<T> node = root;
+        while (node != null) {
+            int c = compare(interval, node.interval);
+            if (c == 0) {
+                return true;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Returns every stored interval that shares at least one point with {@code [lo, hi]}, in
+     * ascending order.
+     */
+    public List<Interval<T>> overlapping (T lo, T hi) {
+        List<Interval<T>> result = new ArrayList<>();
+        overlapping(lo, hi, result::add);
+        return result;
+    }
+
+    public void overlapping (T lo, T hi, Consumer<? super Interval<T>> action) {
+        if (cmp.compare(lo, hi) > 0) {
+            throw new IllegalArgumentException("Query [" + lo + ", " + hi + "] ends before it starts");
+        }
+        overlapping(root, lo, hi, action);
+    }
+
+    private void overlapping (Node<T> node, T lo, T hi, Consumer<? super Interval<T>> action) {
+        while (node != null && cmp.compare(node.max, lo) >= 0) {
+            overlapping(node.left, lo, hi, action);
+            Interval<T> interval = node.interval;
+            if (cmp.compare(interval.getLo(), hi) > 0) {
+                return;
+            }
+            if (cmp.compare(interval.getHi(), lo) >= 0) {
+                action.accept(interval);
+            }
+            node = node.right;
+        }
+    }
+
+    /**
+     * Returns every stored interval that contains {@code point}, in ascending order.
+     */
+    public List<Interval<T>> containing (T point) {
+        return overlapping(point, point);
+    }
+
+    public void containing (T point, Consumer<? super Interval<T>> action) {
+        overlapping(root, point, point, action);
+    }
+
+    public int countOverlapping (T lo, T hi) {
+        int[] count = new int[1];
+        overlapping(lo, hi, interval -> ++count[0]);
+        return count[0];
+    }
+
+    private int compare (Interval<T> a, Interval<T> b) {
+        int c = cmp.compare(a.getLo(), b.getLo());
+        return c != 0 ? c : cmp.compare(a.getHi(), b.getHi());
+    }
+
+    private void updateMax (Node<T> node) {
+        T max = node.interval.getHi();
+        if (node.left != null && node.left.max != null && cmp.compare(node.left.max, max) > 0) {
+            max = node.left.max;
+        }
+        if (node.right != null && node.right.max != null && cmp.compare(node.right.max, max) > 0) {
+            max = node.right.max;
+        }
+        node.max = max;
+    }
+
+    private void rotateRight (Node<T> node) {
+        Node<T> parent = node.parent;
+        Node<T> leftChild = node.left;
+
+        node.left = leftChild.right;
+        if (leftChild.right != null) {
+            leftChild.right.parent = node;
+        }
+
+        leftChild.right = node;
+        node.parent = leftChild;
+
+        replaceParentChild(parent, node, leftChild);
+        updateMax(node);
+        updateMax(leftChild);
+    }
+
+    private void rotateLeft (Node<T> node) {
+        Node<T> parent = node.parent;
+        Node<T> rightChild = node.right;
+
+        node.right = rightChild.left;
+        if (rightChild.left != null) {
+            rightChild.left.parent = node;
+        }
+
+        rightChild.left = node;
+        node.parent = rightChild;
+
+        replaceParentChild(parent, node, rightChild);
+        updateMax(node);
+        updateMax(rightChild);
+    }
+
+    private void replaceParentChild (Node<T> parent, Node<T> oldChild, Node<T> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else if (parent.right == oldChild) {
+            parent.right = newChild;
+        } else {
+            throw new IllegalStateException("replaceParentChild");
+        }
+
+        if (newChild != null) {
+            newChild.parent = parent;
+        }
+    }
+
+    private void fixPropertiesAfterInsertion (Node<T> node) {
+        Node<T> parent = node.parent;
+
+        if (parent == null) {
+            node.color = BLACK;
+            return;
+        }
+
+        if (parent.color == BLACK) {
+            return;
+        }
+
+        Node<T> granny = parent.parent;
+        if (granny == null) {
+            parent.color = BLACK;
+            return;
+        }
+
+        Node<T> uncle = granny.left == parent ? granny.right : granny.left;
+        if (uncle != null && uncle.color == RED) {
+            parent.color = BLACK;
+            uncle.color = BLACK;
+            granny.color = RED;
+            fixPropertiesAfterInsertion(granny);
+        } else if (parent == granny.left) {
+            if (node == parent.right) {
+                rotateLeft(parent);
+                parent = node;
+            }
+            rotateRight(granny);
+            parent.color = BLACK;
+            granny.color = RED;
+        } else {
+            if (node == parent.left) {
+                rotateRight(parent);
+                parent = node;
+            }
+            rotateLeft(granny);
+            parent.color = BLACK;
+            granny.color = RED;
+        }
+    }
+
+    private void deleteNode (Node<T> node) {
+        Node<T> moveUpNode;
+        Node<T> removedParent;
+        boolean deletedNodeColor;
+
+        if (node.left == null || node.right == null) {
+            deletedNodeColor = node.color;
+            removedParent = node.parent;
+            moveUpNode = deleteNodeWithZeroOrOneChild(node);
+        } else {
+            Node<T> successor = findMinNode(node.right);
+            node.interval = successor.interval;
+            deletedNodeColor = successor.color;
+            removedParent = successor.parent;
+            moveUpNode = deleteNodeWithZeroOrOneChild(successor);
+        }
+
+        // Rotations only recompute max from the children, so it has to be right below them
+        // before the fix-up starts.
+        for (Node<T> parent = removedParent; parent != null; parent = parent.parent) {
+            updateMax(parent);
+        }
+
+        if (deletedNodeColor == BLACK) {
+            fixPropertiesAfterDeletion(moveUpNode);
+            if (moveUpNode.getClass() == Nil.class) {
+                replaceParentChild(moveUpNode.parent, moveUpNode, null);
+            }
+        }
+    }
+
+    private Node<T> deleteNodeWithZeroOrOneChild (Node<T> node) {
+        if (node.left != null) {
+            replaceParentChild(node.parent, node, node.left);
+            return node.left;
+        } else if (node.right != null) {
+            replaceParentChild(node.parent, node, node.right);
+            return node.right;
+        } else {
+            Node<T> newChild = node.color == BLACK ? new Nil<>() : null;
+            replaceParentChild(node.parent, node, newChild);
+            return newChild;
+        }
+    }
+
+    private void fixPropertiesAfterDeletion (Node<T> node) {
+        if (node == root) {
+            node.color = BLACK;
+            return;
+        }
+
+        Node<T> sibling = getSibling(node);
+        if (sibling.color == RED) {
+            handleRedSibling(sibling);
+            sibling = getSibling(node);
+        }
+        if (isBlack(sibling.left) && isBlack(sibling.right)) {
+            sibling.color = RED;
+
+            if (node.parent.color == RED) {
+                node.parent.color = BLACK;
+            } else {
+                fixPropertiesAfterDeletion(node.parent);
+            }
+        } else {
+            handleBlackSiblingWithAtLeastOneRedChild(node, sibling);
+        }
+    }
+
+    private Node<T> getSibling (Node<T> node) {
+        Node<T> parent = node.parent;
+        if (node == parent.left) {
+            return parent.right;
+        }
+
+        return parent.left;
+    }
+
+    private void handleRedSibling (Node<T> sibling) {
+        sibling.color = BLACK;
+        sibling.parent.color = RED;
+
+        if (sibling == sibling.parent.right) {
+            rotateLeft(sibling.parent);
+        } else {
+            rotateRight(sibling.parent);
+        }
+    }
+
+    private void handleBlackSiblingWithAtLeastOneRedChild (Node<T> node, Node<T> sibling) {
+        boolean nodeIsLeftChild = node == node.parent.left;
+
+        if (nodeIsLeftChild && isBlack(sibling.right)) {
+            sibling.left.color = BLACK;
+            sibling.color = RED;
+            rotateRight(sibling);
+            sibling = node.parent.right;
+        } else if (!nodeIsLeftChild && isBlack(sibling.left)) {
+            sibling.right.color = BLACK;
+            sibling.color = RED;
+            rotateLeft(sibling);
+            sibling = node.parent.left;
+        }
+
+        sibling.color = node.parent.color;
+        node.parent.color = BLACK;
+        if (nodeIsLeftChild) {
+            sibling.right.color = BLACK;
+            rotateLeft(node.parent);
+        } else {
+            sibling.left.color = BLACK;
+            rotateRight(node.parent);
+        }
+    }
+
+    private boolean isBlack (Node<T> node) {
+        return node == null || node.color == BLACK;
+    }
+
+    private Node<T> findMinNode (Node<T> root) {
+        while (root.left != null) {
+            root = root.left;
+        }
+        return root;
+    }
+
+    private Node<T> successorOf (Node<T> node) {
+        if (node.right != null) {
+            return findMinNode(node.right);
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    public int size () {
+        return nodesCount;
+    }
+
+    public boolean isEmpty () {
+        return nodesCount == 0;
+    }
+
+    public void clear () {
+        root = null;
+        nodesCount = 0;
+    }
+
+    public int getTreeHeight () {
+        return getTreeHeight(root);
+    }
+
+    private int getTreeHeight (Node<T> node) {
+        if (node == null) {
+            return 0;
+        }
+        return Math.max(getTreeHeight(node.left), getTreeHeight(node.right)) + 1;
+    }
+
+    public List<Interval<T>> toSortedList () {
+        List<Interval<T>> list = new ArrayList<>(nodesCount);
+        for (Interval<T> interval : this) {
+            list.add(interval);
+        }
+        return list;
+    }
+
+    @Override
+    public Iterator<Interval<T>> iterator () {
+        return new Iterator<>() {
+            private Node<T> next = root == null ? null : findMinNode(root);
+
+            @Override
+            public boolean hasNext () {
+                return next != null;
+            }
+
+            @Override
+            public Interval<T> next () {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Node<T> node = next;
+                next = successorOf(node);
+                return node.interval;
+            }
+        };
+    }
+}
@@ -0,0 +1,333 @@
+package RBTree;
+
+import java.util.NoSuchElementException;
+
+public class LongRBTree {
+
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+    private Node root;
+    private int nodesCount;
+
+    public LongRBTree () {}
+
+    private static class Node {
+        long item;
+        Node parent;
+        Node left;
+        Node right;
+        boolean color;
+
+        Node () { }
+        Node (long item) {
+            this.item = item;
+            this.color = RED;
+        }
+    }
+
+    private static final class Nil extends Node {
+        Nil () {
+            super();
+            this.color = BLACK;
+        }
+    }
+
+    public boolean search (long item) {
+        return findNode(item) != null;
+    }
+
+    private Node findNode (long item) {
+        Node node = root;
+        while (node != null) {
+            if (item < node.item) {
+                node = node.left;
+            } else if (item > node.item) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    public long findMinData () {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return findMinNode(root).item;
+    }
+
+    public long findMaxData () {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.item;
+    }
+
+    public int size () {
+        return nodesCount;
+    }
+
+    public void clear () {
+        root = null;
+        nodesCount = 0;
+    }
+
+    private void rotateRight (Node node) {
+        Node parent = node.parent;
+        Node leftChild = node.left;
+
+        node.left = leftChild.right;
+        if (leftChild.right != null) {
+            leftChild.right.parent = node;
+        }
+
+        leftChild.right = node;
+        node.parent = leftChild;
+
+        replaceParentChild(parent, node, leftChild);
+    }
+
+    private void rotateLeft (Node node) {
+        Node parent = node.parent;
+        Node rightChild = node.right;
+
+        node.right = rightChild.left;
+        if (rightChild.left != null) {
+            rightChild.left.parent = node;
+        }
+
+        rightChild.left = node;
+        node.parent = rightChild;
+
+        replaceParentChild(parent, node, rightChild);
+    }
+
+    private void replaceParentChild (Node parent, Node oldChild, Node newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else if (parent.right == oldChild) {
+            parent.right = newChild;
+        } else {
+            throw new IllegalStateException("replaceParentChild");
+        }
+
+        if (newChild != null) {
+            newChild.parent = parent;
+        }
+    }
+
+    public void insert (long item) {
+        Node node = root;
+        Node parent = null;
+
+        while (node != null) {
+            parent = node;
+            node = item < node.item ? node.left : node.right;
+        }
+
+        Node newNode = new Node(item);
+        if (parent == null) {
+            root = newNode;
+        } else if (item < parent.item) {
+            parent.left = newNode;
+        } else {
+            parent.right = newNode;
+        }
+        newNode.parent = parent;
+        ++nodesCount;
+
+        fixPropertiesAfterInsertion(newNode);
+    }
+
+    private void fixPropertiesAfterInsertion (Node node) {
+        while (true) {
+            Node parent = node.parent;
+
+            if (parent == null) {
+                node.color = BLACK;
+                return;
+            }
+
+            if (parent.color == BLACK) {
+                return;
+            }
+
+            Node granny = parent.parent;
+            if (granny == null) {
+                parent.color = BLACK;
+                return;
+            }
+
+            Node uncle = granny.left == parent ? granny.right : granny.left;
+            if (uncle != null && uncle.color == RED) {
+                parent.color = BLACK;
+                uncle.color = BLACK;
+                granny.color = RED;
+                node = granny;
+                continue;
+            }
+
+            if (parent == granny.left) {
+                if (node == parent.right) {
+                    rotateLeft(parent);
+                    parent = node;
+                }
+                rotateRight(granny);
+            } else {
+                if (node == parent.left) {
+                    rotateRight(parent);
+                    parent = node;
+                }
+                rotateLeft(granny);
+            }
+            parent.color = BLACK;
+            granny.color = RED;
+            return;
+        }
+    }
+
+    public boolean delete (long item) {
+        Node node = findNode(item);
+        if (node == null) {
+            return false;
+        }
+
+        Node moveUpNode;
+        boolean deletedNodeColor;
+
+        if (node.left == null || node.right == null) {
+            deletedNodeColor = node.color;
+            moveUpNode = deleteNodeWithZeroOrOneChild(node);
+        } else {
+            Node successor = findMinNode(node.right);
+            node.item = successor.item;
+            deletedNodeColor = successor.color;
+            moveUpNode = deleteNodeWithZeroOrOneChild(successor);
+        }
+
+        if (deletedNodeColor == BLACK) {
+            fixPropertiesAfterDeletion(moveUpNode);
+            if (moveUpNode instanceof Nil) {
+                replaceParentChild(moveUpNode.parent, moveUpNode, null);
+            }
+        }
+        --nodesCount;
+        return true;
+    }
+
+    private Node deleteNodeWithZeroOrOneChild (Node node) {
+        if (node.left != null) {
+            replaceParentChild(node.parent, node, node.left);
+            return node.left;
+        } else if (node.right != null) {
+            replaceParentChild(node.parent, node, node.right);
+            return node.right;
+        } else {
+            Node newChild = node.color == BLACK ? new Nil() : null;
+            replaceParentChild(node.parent, node, newChild);
+            return newChild;
+        }
+    }
+
+    private void fixPropertiesAfterDeletion (Node node) {
+        while (node != root) {
+            Node sibling = getSibling(node);
+            if (sibling.color == RED) {
+                sibling.color = BLACK;
+                node.parent.color = RED;
+                if (sibling == node.parent.right) {
+                    rotateLeft(node.parent);
+                } else {
+                    rotateRight(node.parent);
+                }
+                sibling = getSibling(node);
+            }
+
+            if (isBlack(sibling.left) && isBlack(sibling.right)) {
+                sibling.color = RED;
+                if (node.parent.color == RED) {
+                    node.parent.color = BLACK;
+                    return;
+                }
+                node = node.parent;
+                continue;
+            }
+
+            handleBlackSiblingWithAtLeastOneRedChild(node, sibling);
+            return;
+        }
+        node.color = BLACK;
+    }
+
+    private Node getSibling (Node node) {
+        Node parent = node.parent;
+        return node == parent.left ? parent.right : parent.left;
+    }
+
+    private void handleBlackSiblingWithAtLeastOneRedChild (Node node, Node sibling) {
+        boolean nodeIsLeftChild = node == node.parent.left;
+
+        if (nodeIsLeftChild && isBlack(sibling.right)) {
+            sibling.left.color = BLACK;
+            sibling.color = RED;
+            rotateRight(sibling);
+            sibling = node.parent.right;
+        } else if (!nodeIsLeftChild && isBlack(sibling.left)) {
+            sibling.right.color = BLACK;
+            sibling.color = RED;
+            rotateLeft(sibling);
+            sibling = node.parent.left;
+        }
+
+        sibling.color = node.parent.color;
+        node.parent.color = BLACK;
+        if (nodeIsLeftChild) {
+            sibling.right.color = BLACK;
+            rotateLeft(node.parent);
+        } else {
+            sibling.left.color = BLACK;
+            rotateRight(node.parent);
+        }
+    }
+
+    private static boolean isBlack (Node node) {
+        return node == null || node.color == BLACK;
+    }
+
+    private static Node findMinNode (Node root) {
+        while (root.left != null) {
+            root = root.left;
+        }
+        return root;
+    }
+
+    public long[] toSortedArray () {
+        long[] result = new long[nodesCount];
+        if (root == null) {
+            return result;
+        }
+
+        int index = 0;
+        Node node = findMinNode(root);
+        while (node != null) {
+            result[index++] = node.item;
+            if (node.right != null) {
+                node = findMinNode(node.right);
+            } else {
+                while (node.parent != null && node == node.parent.right) {
+                    node = node.parent;
+                }
+                node = node.parent;
+            }
+        }
+        return result;
+    }
+
+}
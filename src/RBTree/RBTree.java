@@ -1,25 +1,223 @@
 package RBTree;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
-public class RBTree<T extends Comparable<T>> {
+import Metrics.TreeListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class RBTree<T extends Comparable<T>> implements Iterable<T> {
 
     private static final boolean RED = false;
     private static final boolean BLACK = true;
+    private static final int PARALLEL_BLACK_HEIGHT = 12;
+    private static final int REBUILD_DIVISOR = 4;
+    private static final int PARALLEL_BUILD_THRESHOLD = 1 << 13;
+    private final Comparator<? super T> cmp;
+    private final boolean multiset;
     private Node<T> root;
+    private int nodesCount;
+
+    private TreeListener listener;
+    private int comparisons;
+    private int depth;
+    private int rotations;
+    private int recolors;
+    private int fixups;
 
     public RBTree (T item) {
+        this();
         this.insert(item);
     }
 
-    public RBTree () {}
+    public RBTree () {
+        this(null, false);
+    }
+
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public RBTree (Comparator<? super T> cmp) {
+        this(cmp, false);
+    }
+
+    private RBTree (Comparator<? super T> cmp, boolean multiset) {
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+        this.multiset = multiset;
+    }
+
+    /**
+     * Returns an empty tree that keeps one node per distinct key with a count of its copies, so
+     * memory and height depend on the number of distinct keys only. {@link #size()} and iteration
+     * still count every copy.
+     */
+    public static <T extends Comparable<T>> RBTree<T> multiset () {
+        return new RBTree<T>(null, true);
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> multiset (Comparator<? super T> cmp) {
+        return new RBTree<T>(cmp, true);
+    }
+
+    public boolean isMultiset () {
+        return multiset;
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> fromSorted (Object[] sorted) {
+        return fromSorted(null, sorted);
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> fromSorted (Comparator<? super T> cmp, Object[] sorted) {
+        RBTree<T> tree = new RBTree<T>(cmp);
+        for (int i = 1; i < sorted.length; ++i) {
+            if (tree.cmp.compare((T) sorted[i - 1], (T) sorted[i]) > 0) {
+                throw new IllegalArgumentException("Input is not sorted in ascending order at index " + i);
+            }
+        }
+
+        if (sorted.length > 0) {
+            int redDepth = 31 - Integer.numberOfLeadingZeros(sorted.length);
+            tree.root = build(sorted, 0, sorted.length - 1, null, 0, redDepth);
+        }
+        tree.nodesCount = sorted.length;
+        return tree;
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> fromSorted (Iterator<? extends T> sorted) {
+        return fromSorted(null, sorted);
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> fromSorted (Comparator<? super T> cmp, Iterator<? extends T> sorted) {
+        List<Object> items = new ArrayList<>();
+        while (sorted.hasNext()) {
+            items.add(sorted.next());
+        }
+        return RBTree.<T>fromSorted(cmp, items.toArray());
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> fromUnsorted (Collection<? extends T> items) {
+        return fromUnsorted(null, items.toArray(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds a tree of the distinct keys of {@code items}, which is left unchanged. A copy is
+     * sorted with {@link Arrays#parallelSort} inside {@code pool}, so its subtasks run there, and
+     * the tree is then linked bottom-up with subtrees of more than
+     * {@link #PARALLEL_BUILD_THRESHOLD} keys built as separate tasks. Colours are assigned
+     * directly as in {@link #fromSorted}, with no fix-ups.
+     */
+    public static <T extends Comparable<T>> RBTree<T> fromUnsorted (Comparator<? super T> cmp, Object[] items, ForkJoinPool pool) {
+        RBTree<T> tree = new RBTree<T>(cmp);
+        Object[] sorted = items.clone();
+        int count = pool.invoke(ForkJoinTask.adapt(() -> sortDistinct(sorted, tree.cmp)));
+        if (count > 0) {
+            int redDepth = 31 - Integer.numberOfLeadingZeros(count);
+            tree.root = pool.invoke(new BuildTask<T>(sorted, 0, count - 1, 0, redDepth));
+        }
+        tree.nodesCount = count;
+        return tree;
+    }
+
+    /**
+     * Sorts {@code keys} and moves the distinct ones to its front. Returns how many there are.
+     */
+    private static <T> int sortDistinct (Object[] keys, Comparator<? super T> cmp) {
+        Arrays.parallelSort(keys, (Comparator<Object>) cmp);
+        int count = 0;
+        for (Object key : keys) {
+            if (count == 0 || cmp.compare((T) keys[count - 1], (T) key) != 0) {
+                keys[count++] = key;
+            }
+        }
+        return count;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class BuildTask<T> extends RecursiveTask<Node<T>> {
+        private final Object[] sorted;
+        private final int lo;
+        private final int hi;
+        private final int depth;
+        private final int redDepth;
+
+        BuildTask (Object[] sorted, int lo, int hi, int depth, int redDepth) {
+            this.sorted = sorted;
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+            this.redDepth = redDepth;
+        }
+
+        @Override
+        protected Node<T> compute () {
+            if (hi - lo < PARALLEL_BUILD_THRESHOLD) {
+                return build(sorted, lo, hi, null, depth, redDepth);
+            }
+
+            int mid = (lo + hi) >>> 1;
+            BuildTask<T> leftTask = new BuildTask<>(sorted, lo, mid - 1, depth + 1, redDepth);
+            leftTask.fork();
+            Node<T> right = new BuildTask<T>(sorted, mid + 1, hi, depth + 1, redDepth).compute();
+            Node<T> left = leftTask.join();
+
+            Node<T> node = new Node<>((T) sorted[mid]);
+            node.color = depth == redDepth && depth > 0 ? RED : BLACK;
+            node.left = left;
+            node.right = right;
+            left.parent = node;
+            right.parent = node;
+            return node;
+        }
+    }
+
+    private static <T> Node<T> build (Object[] sorted, int lo, int hi, Node<T> parent, int depth, int redDepth) {
+        if (lo > hi) {
+            return null;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        Node<T> node = new Node<>((T) sorted[mid]);
+        node.parent = parent;
+        node.color = depth == redDepth && depth > 0 ? RED : BLACK;
+        node.left = build(sorted, lo, mid - 1, node, depth + 1, redDepth);
+        node.right = build(sorted, mid + 1, hi, node, depth + 1, redDepth);
+        return node;
+    }
+    private static <T> Node<T> relink (Node<T>[] nodes, int lo, int hi, Node<T> parent, int depth, int redDepth) {
+        if (lo > hi) {
+            return null;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        Node<T> node = nodes[mid];
+        node.parent = parent;
+        node.color = depth == redDepth && depth > 0 ? RED : BLACK;
+        node.left = relink(nodes, lo, mid - 1, node, depth + 1, redDepth);
+        node.right = relink(nodes, mid + 1, hi, node, depth + 1, redDepth);
+        return node;
+    }
+
     private static class Node<T> {
         T item;
         Node<T> parent;
         Node<T> left;
         Node<T> right;
         boolean color;
+        int count = 1;
 
         Node () { }
         Node (T item) {
@@ -39,23 +237,133 @@ public class RBTree<T extends Comparable<T>> {
         }
     }
 
+    /**
+     * Reports every insert, delete and search to {@code listener}, or stops reporting when it is
+     * null. Batch operations are not reported.
+     */
+    public void setListener (TreeListener listener) {
+        this.listener = listener;
+    }
+
+    private void resetCounters () {
+        comparisons = 0;
+        depth = 0;
+        rotations = 0;
+        recolors = 0;
+        fixups = 0;
+    }
+
+    private void report (TreeListener.Operation operation) {
+        TreeListener listener = this.listener;
+        if (listener != null) {
+            listener.onOperation(operation, comparisons, depth, rotations, recolors, fixups);
+        }
+    }
+
     public boolean search (T item) {
         Node<T> node = root;
+        int depth = 0;
+        boolean found = false;
         while (node != null) {
-            if (node.item.compareTo(item) == 0) {
-                return true;
+            ++depth;
+            int c = cmp.compare(item, node.item);
+            if (c == 0) {
+                found = true;
+                break;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+
+        TreeListener listener = this.listener;
+        if (listener != null) {
+            listener.onOperation(TreeListener.Operation.SEARCH, depth, depth, 0, 0, 0);
+        }
+        return found;
+    }
+
+
+    /**
+     * Search that gives up after {@code budget} node visits. Used by {@link ConcurrentRBTree} for
+     * optimistic reads, which may observe a tree that a writer is halfway through restructuring.
+     * Returns 1 if found, 0 if not found and -1 if the budget ran out.
+     */
+    int search (T item, int budget) {
+        Node<T> node = root;
+        while (node != null) {
+            if (--budget < 0) {
+                return -1;
+            }
+            int c = cmp.compare(item, node.item);
+            if (c == 0) {
+                return 1;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+        return 0;
+    }
+
+    /**
+     * Copies up to {@code out.length} keys in ascending order into {@code out}, starting at the
+     * first key not less than {@code from} (or the minimum if null) and skipping the first
+     * {@code skip} keys equal to {@code from}. Stops at {@code hi}. Returns the number of keys
+     * copied, or -1 if more than {@code budget} nodes were visited.
+     */
+    int collect (T from, int skip, T hi, boolean hiInclusive, Object[] out, int budget) {
+        Node<T> node = root;
+        Node<T> start = null;
+        while (node != null) {
+            if (--budget < 0) {
+                return -1;
             }
-            if (node.item.compareTo(item) > 0) {
+            if (from == null || cmp.compare(node.item, from) >= 0) {
+                start = node;
                 node = node.left;
-            } else if (node.item.compareTo(item) < 0) {
+            } else {
                 node = node.right;
             }
         }
-        return false;
-    }
 
+        int count = 0;
+        node = start;
+        while (node != null && count < out.length) {
+            if (hi != null) {
+                int c = cmp.compare(node.item, hi);
+                if (c > 0 || (c == 0 && !hiInclusive)) {
+                    break;
+                }
+            }
+            if (skip > 0 && cmp.compare(node.item, from) == 0) {
+                --skip;
+            } else {
+                out[count++] = node.item;
+            }
+
+            if (node.right != null) {
+                node = node.right;
+                while (node.left != null) {
+                    if (--budget < 0) {
+                        return -1;
+                    }
+                    node = node.left;
+                }
+            } else {
+                while (node.parent != null && node == node.parent.right) {
+                    if (--budget < 0) {
+                        return -1;
+                    }
+                    node = node.parent;
+                }
+                node = node.parent;
+            }
+            if (--budget < 0) {
+                return -1;
+            }
+        }
+        return count;
+    }
 
     private void rotateRight (Node<T> node) {
+        ++rotations;
         Node<T> parent = node.parent;
         Node<T> leftChild = node.left;
 
@@ -71,6 +379,7 @@ public class RBTree<T extends Comparable<T>> {
     }
 
     private void rotateLeft (Node<T> node) {
+        ++rotations;
         Node<T> parent = node.parent;
         Node<T> rightChild = node.right;
 
@@ -100,33 +409,188 @@ public class RBTree<T extends Comparable<T>> {
             newChild.parent = parent;
         }
     }
+    private boolean naturalOrder () {
+        return cmp == Comparator.naturalOrder();
+    }
+
+    /**
+     * Number of keys, counting every copy. A tree produced by {@link #split} counts its keys on
+     * the first call, so that the split itself stays O(log n).
+     */
+    public int size () {
+        if (nodesCount < 0) {
+            nodesCount = count(root);
+        }
+        return nodesCount;
+    }
+
+    public void clear () {
+        root = null;
+        nodesCount = 0;
+    }
+
     public void insert (T item){
+        resetCounters();
         insert(item, root);
+        report(TreeListener.Operation.INSERT);
     }
 
-    private void insert (T item, Node<T> root) {
+    /**
+     * Inserts every item of {@code items}. The batch is sorted first; a batch that is large
+     * relative to the tree is merged with the existing nodes and the tree relinked into balanced
+     * shape in one O(n + m) pass, otherwise each item is inserted starting from the node inserted
+     * just before it, so descents share the common part of their paths.
+     */
+    public void insertAll (Collection<? extends T> items) {
+        Object[] batch = items.toArray();
+        if (batch.length == 0) {
+            return;
+        }
+        Arrays.sort(batch, (Comparator<Object>) cmp);
+
+        if ((long) batch.length * REBUILD_DIVISOR >= size()) {
+            int size = size() + batch.length;
+            Node<T>[] nodes = new Node[size];
+            int count = 0;
+            int next = 0;
+            for (Node<T> node = root == null ? null : findMinNode(root); node != null; node = successorOf(node)) {
+                while (next < batch.length && cmp.compare((T) batch[next], node.item) < 0) {
+                    count = append(nodes, count, (T) batch[next++]);
+                }
+                while (multiset && next < batch.length && cmp.compare((T) batch[next], node.item) == 0) {
+                    ++node.count;
+                    ++next;
+                }
+                nodes[count++] = node;
+            }
+            while (next < batch.length) {
+                count = append(nodes, count, (T) batch[next++]);
+            }
+            rebuild(nodes, count, size);
+            return;
+        }
+
+        Node<T> finger = null;
+        for (Object o : batch) {
+            T item = (T) o;
+            Node<T> start = root;
+            if (finger != null) {
+                start = finger;
+                while (start.parent != null && !(start == start.parent.left && cmp.compare(item, start.parent.item) < 0)) {
+                    start = start.parent;
+                }
+            }
+            finger = insert(item, start);
+        }
+    }
+
+    /**
+     * Appends a node for {@code item} to the {@code count} nodes of {@code nodes}, or in a
+     * multiset adds a copy to the last one when it holds the same key. Returns the new count.
+     */
+    private int append (Node<T>[] nodes, int count, T item) {
+        if (multiset && count > 0 && cmp.compare(nodes[count - 1].item, item) == 0) {
+            ++nodes[count - 1].count;
+            return count;
+        }
+        nodes[count] = new Node<>(item);
+        return count + 1;
+    }
+
+    /**
+     * Deletes one occurrence of every item of {@code items}, rebuilding the tree in one pass when
+     * the batch is large relative to it.
+     */
+    public void deleteAll (Collection<? extends T> items) {
+        Object[] batch = items.toArray();
+        if (batch.length == 0) {
+            return;
+        }
+
+        if ((long) batch.length * REBUILD_DIVISOR < size()) {
+            for (Object o : batch) {
+                delete((T) o);
+            }
+            return;
+        }
+
+        Arrays.sort(batch, (Comparator<Object>) cmp);
+        Node<T>[] nodes = new Node[size()];
+        int size = size();
+        int count = 0;
+        int next = 0;
+        for (Node<T> node = root == null ? null : findMinNode(root); node != null; node = successorOf(node)) {
+            int c = -1;
+            while (next < batch.length && (c = cmp.compare((T) batch[next], node.item)) < 0) {
+                ++next;
+            }
+            while (next < batch.length && c == 0 && node.count > 0) {
+                --node.count;
+                --size;
+                ++next;
+                c = next < batch.length ? cmp.compare((T) batch[next], node.item) : -1;
+                if (!multiset) {
+                    break;
+                }
+            }
+            if (node.count > 0) {
+                nodes[count++] = node;
+            }
+        }
+        rebuild(nodes, count, size);
+    }
+
+    /**
+     * Relinks the first {@code count} nodes of {@code nodes}, which hold {@code size} copies in
+     * total, into a balanced tree.
+     */
+    private void rebuild (Node<T>[] nodes, int count, int size) {
+        root = null;
+        if (count > 0) {
+            int redDepth = 31 - Integer.numberOfLeadingZeros(count);
+            root = relink(nodes, 0, count - 1, null, 0, redDepth);
+        }
+        nodesCount = size;
+    }
+
+    private Node<T> insert (T item, Node<T> root) {
         Node<T> parent = null;
+        int depth = 0;
+        int c = 0;
 
         while (root != null) {
+            ++depth;
             parent = root;
-            if (item.compareTo(root.item) < 0) {
-                root = root.left;
-            } else {
-                root = root.right;
+            c = cmp.compare(item, root.item);
+            if (c == 0 && multiset) {
+                this.depth = depth;
+                this.comparisons += depth;
+                ++root.count;
+                if (nodesCount >= 0) {
+                    ++nodesCount;
+                }
+                return root;
             }
+            root = c < 0 ? root.left : root.right;
         }
 
+        this.depth = depth;
+        this.comparisons += depth;
         Node<T> newNode = new Node<>(item);
         if (parent == null) {
             this.root = newNode;
-        } else if (item.compareTo(parent.item) < 0) {
+        } else if (c < 0) {
             parent.left = newNode;
         } else {
             parent.right = newNode;
         }
         newNode.parent = parent;
+        if (nodesCount >= 0) {
+            ++nodesCount;
+        }
 
         fixPropertiesAfterInsertion(newNode);
+        return newNode;
     }
 
     private Node<T> getUncle (Node<T> parent) {
@@ -142,9 +606,11 @@ public class RBTree<T extends Comparable<T>> {
     }
 
     private void fixPropertiesAfterInsertion (Node<T> node) {
+        ++fixups;
         Node<T> parent = node.parent;
 
         if (parent == null) {
+            ++recolors;
             node.color = BLACK;
             return;
         }
@@ -155,12 +621,14 @@ public class RBTree<T extends Comparable<T>> {
 
         Node<T> granny = parent.parent;
         if(granny == null) {
+            ++recolors;
             parent.color = BLACK;
             return;
         }
 
         Node<T> uncle = this.getUncle(parent);
         if (uncle != null && uncle.color == RED) {
+            recolors += 3;
             parent.color = BLACK;
             uncle.color = BLACK;
             granny.color = RED;
@@ -171,6 +639,7 @@ public class RBTree<T extends Comparable<T>> {
                 parent = node;
             }
             rotateRight(granny);
+            recolors += 2;
             parent.color = BLACK;
             granny.color = RED;
 
@@ -180,6 +649,7 @@ public class RBTree<T extends Comparable<T>> {
                 parent = node;
             }
             rotateLeft(granny);
+            recolors += 2;
             parent.color = BLACK;
             granny.color = RED;
         }
@@ -187,22 +657,87 @@ public class RBTree<T extends Comparable<T>> {
     }
 
     public void delete (T item) {
-        delete(item, root);
+        removeOne(item);
     }
 
-    private void delete (T item, Node<T> node) {
-        while (node != null && !node.item.equals(item)) {
-            if (item.compareTo(node.item) < 0) {
-                node = node.left;
-            } else {
-                node = node.right;
+    /**
+     * Removes one copy of {@code item} and returns whether there was one.
+     */
+    public boolean removeOne (T item) {
+        resetCounters();
+        boolean removed = delete(item, root, false) > 0;
+        report(TreeListener.Operation.DELETE);
+        return removed;
+    }
+
+    /**
+     * Removes every copy of {@code item} and returns how many there were.
+     */
+    public int removeAll (T item) {
+        resetCounters();
+        int removed = 0;
+        for (int n; (n = delete(item, root, true)) > 0; ) {
+            removed += n;
+        }
+        report(TreeListener.Operation.DELETE);
+        return removed;
+    }
+
+    /**
+     * Returns the number of copies of {@code item}.
+     */
+    public int count (T item) {
+        Node<T> node = root;
+        Node<T> first = null;
+        while (node != null) {
+            int c = cmp.compare(item, node.item);
+            if (c == 0) {
+                first = node;
             }
+            node = c <= 0 ? node.left : node.right;
         }
 
+        int count = 0;
+        for (node = first; node != null && cmp.compare(item, node.item) == 0; node = successorOf(node)) {
+            count += node.count;
+        }
+        return count;
+    }
+
+    /**
+     * Removes one copy of {@code item}, or its whole node if {@code all} is set, and returns the
+     * number of copies removed.
+     */
+    private int delete (T item, Node<T> node, boolean all) {
+        int depth = 0;
+        while (node != null) {
+            ++depth;
+            int c = cmp.compare(item, node.item);
+            if (c == 0) {
+                break;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+        this.depth = depth;
+        this.comparisons += depth;
+
         if (node == null) {
-            return;
+            return 0;
         }
 
+        int removed = all ? node.count : 1;
+        if (node.count > removed) {
+            node.count -= removed;
+        } else {
+            deleteNode(node);
+        }
+        if (nodesCount >= 0) {
+            nodesCount -= removed;
+        }
+        return removed;
+    }
+
+    private void deleteNode (Node<T> node) {
         Node<T> moveUpNode;
         boolean deletedNodeColor;
 
@@ -212,6 +747,7 @@ public class RBTree<T extends Comparable<T>> {
         } else {
             Node<T> successor = findSuccessorNode(node);
             node.item = successor.item;
+            node.count = successor.count;
             deletedNodeColor = successor.color;
             moveUpNode = deleteNodeWithZeroOrOneChild(successor);
         }
@@ -239,7 +775,9 @@ public class RBTree<T extends Comparable<T>> {
     }
 
     private void fixPropertiesAfterDeletion (Node<T> node) {
+        ++fixups;
         if (node == root) {
+            ++recolors;
             node.color = BLACK;
             return;
         }
@@ -250,9 +788,11 @@ public class RBTree<T extends Comparable<T>> {
             sibling = getSibling(node);
         }
         if (isBlack(sibling.left) && isBlack(sibling.right)) {
+            ++recolors;
             sibling.color = RED;
 
             if (node.parent.color == RED) {
+                ++recolors;
                 node.parent.color = BLACK;
             } else {
                 fixPropertiesAfterDeletion(node.parent);
@@ -273,6 +813,7 @@ public class RBTree<T extends Comparable<T>> {
     }
 
     private void handleRedSibling (Node<T> node, Node<T> sibling) {
+        recolors += 2;
         sibling.color = BLACK;
         sibling.parent.color = RED;
 
@@ -287,17 +828,20 @@ public class RBTree<T extends Comparable<T>> {
         boolean nodeIsLeftChild = node == node.parent.left;
 
         if (nodeIsLeftChild && isBlack(sibling.right)) {
+            recolors += 2;
             sibling.left.color = BLACK;
             sibling.color = RED;
             rotateRight(sibling);
             sibling = node.parent.right;
         } else if (!nodeIsLeftChild && isBlack(sibling.left)) {
+            recolors += 2;
             sibling.right.color = BLACK;
             sibling.color = RED;
             rotateLeft(sibling);
             sibling = node.parent.left;
         }
 
+        recolors += 3;
         sibling.color = node.parent.color;
         node.parent.color = BLACK;
         if (nodeIsLeftChild) {
@@ -350,58 +894,895 @@ public class RBTree<T extends Comparable<T>> {
         return root;
     }
 
-//    public void levelOrderTraversal() {
-//        if (root == null) {
-//            return;
-//        }
-//
-//        Queue<Node<T>> queue = new LinkedList<>();
-//        queue.add(root);
-//
-//        while (!queue.isEmpty()) {
-//            Node<T> node = queue.poll();
-//            System.out.println(node);
-//            if (node.left != null) {
-//                queue.add(node.left);
-//            }
-//            if (node.right != null) {
-//                queue.add(node.right);
-//            }
-//
-//        }
-//    }
-
-    public void levelOrderTraversal() {
-        int height = getHeight(root);
-
-        for (int i = 1; i <= height; ++i) {
-            printLevel(root, i);
+    public Object[] toSortedArray () {
+        List<Object> list = new ArrayList<>();
+        for (T item : this) {
+            list.add(item);
+        }
+        return list.toArray();
+    }
+
+    @Override
+    public Iterator<T> iterator () {
+        return new SortedIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator () {
+        return new TreeSpliterator(root, null, Long.MAX_VALUE);
+    }
+
+    public Stream<T> stream () {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<T> parallelStream () {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    private Node<T> successorOf (Node<T> node) {
+        if (node.right != null) {
+            return findMinNode(node.right);
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private Node<T> predecessorOf (Node<T> node) {
+        if (node.left != null) {
+            return findMaxNode(node.left);
+        }
+        while (node.parent != null && node == node.parent.left) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    public RangeView subSet (T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+        if (cmp.compare(lo, hi) > 0) {
+            throw new IllegalArgumentException("lo > hi");
+        }
+        return new RangeView(lo, loInclusive, hi, hiInclusive, false);
+    }
+
+    public RangeView subSet (T lo, T hi) {
+        return subSet(lo, true, hi, false);
+    }
+
+    public RangeView headSet (T hi, boolean inclusive) {
+        return new RangeView(null, false, hi, inclusive, false);
+    }
+
+    public RangeView tailSet (T lo, boolean inclusive) {
+        return new RangeView(lo, inclusive, null, false, false);
+    }
+
+    /**
+     * Live view of the keys between two optional bounds. Iteration descends once to the first key
+     * in range and then follows parent links, so a view over k keys costs O(log n + k).
+     */
+    public class RangeView implements Iterable<T> {
+        private final T lo;
+        private final boolean loInclusive;
+        private final T hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        private RangeView (T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending) {
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow (T item) {
+            if (lo == null) {
+                return false;
+            }
+            int c = cmp.compare(item, lo);
+            return c < 0 || (c == 0 && !loInclusive);
+        }
+
+        private boolean tooHigh (T item) {
+            if (hi == null) {
+                return false;
+            }
+            int c = cmp.compare(item, hi);
+            return c > 0 || (c == 0 && !hiInclusive);
+        }
+
+        private Node<T> lowest () {
+            Node<T> node = root;
+            Node<T> lowest = null;
+            while (node != null) {
+                if (tooLow(node.item)) {
+                    node = node.right;
+                } else {
+                    lowest = node;
+                    node = node.left;
+                }
+            }
+            return lowest == null || tooHigh(lowest.item) ? null : lowest;
+        }
+
+        private Node<T> highest () {
+            Node<T> node = root;
+            Node<T> highest = null;
+            while (node != null) {
+                if (tooHigh(node.item)) {
+                    node = node.left;
+                } else {
+                    highest = node;
+                    node = node.right;
+                }
+            }
+            return highest == null || tooLow(highest.item) ? null : highest;
+        }
+
+        public RangeView descending () {
+            return new RangeView(lo, loInclusive, hi, hiInclusive, !descending);
+        }
+
+        public int count () {
+            int count = 0;
+            for (Iterator<T> it = iterator(); it.hasNext(); it.next()) {
+                ++count;
+            }
+            return count;
+        }
+
+        public boolean isEmpty () {
+            return lowest() == null;
+        }
+
+        @Override
+        public Iterator<T> iterator () {
+            return new RangeIterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator () {
+            int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+            if (!descending && naturalOrder()) {
+                characteristics |= Spliterator.SORTED;
+            }
+            return Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+        }
+
+        public Stream<T> stream () {
+            return StreamSupport.stream(spliterator(), false);
+        }
+
+        private class RangeIterator implements Iterator<T> {
+            private Node<T> next = descending ? highest() : lowest();
+            private int repeat = next == null ? 0 : next.count;
+
+            @Override
+            public boolean hasNext () {
+                return next != null;
+            }
+
+            @Override
+            public T next () {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T item = next.item;
+                if (--repeat > 0) {
+                    return item;
+                }
+                next = descending ? predecessorOf(next) : successorOf(next);
+                repeat = next == null ? 0 : next.count;
+                if (next != null && (descending ? tooLow(next.item) : tooHigh(next.item))) {
+                    next = null;
+                }
+                return item;
+            }
+        }
+    }
+
+    public Cursor cursor () {
+        return new Cursor();
+    }
+
+    /**
+     * Movable position in the tree. {@link #next()} and {@link #previous()} follow parent links,
+     * so a walk over k keys costs O(k) in total, and {@link #seek(Comparable)} starts from the
+     * current position, climbing only as far as the key requires before descending. A cursor
+     * starts unpositioned; any modification of the tree invalidates it. In a multiset the cursor
+     * visits each distinct key once; {@link RBTree#count(Comparable)} gives its copies.
+     */
+    public class Cursor {
+        private Node<T> node;
+
+        private Cursor () { }
+
+        public boolean isPositioned () {
+            return node != null;
+        }
+
+        public T get () {
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            return node.item;
+        }
+
+        public boolean first () {
+            node = root == null ? null : findMinNode(root);
+            return node != null;
+        }
+
+        public boolean last () {
+            node = root == null ? null : findMaxNode(root);
+            return node != null;
+        }
+
+        /**
+         * Moves to the next key, or leaves the cursor unpositioned and returns false at the end.
+         */
+        public boolean next () {
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            node = successorOf(node);
+            return node != null;
+        }
+
+        /**
+         * Moves to the previous key, or leaves the cursor unpositioned and returns false at the start.
+         */
+        public boolean previous () {
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            node = predecessorOf(node);
+            return node != null;
+        }
+
+        /**
+         * Moves to the first key not less than {@code key} and returns whether it equals
+         * {@code key}. When every key is less, the cursor is left unpositioned. From a
+         * positioned cursor the search climbs only to the lowest ancestor whose subtree can hold
+         * the answer, so seeking a nearby key touches few nodes.
+         */
+        public boolean seek (T key) {
+            Node<T> x = node != null ? node : root;
+            if (x == null) {
+                return false;
+            }
+            if (node != null) {
+                if (cmp.compare(key, x.item) <= 0) {
+                    while (x.parent != null && (x == x.parent.left || cmp.compare(key, x.parent.item) <= 0)) {
+                        x = x.parent;
+                    }
+                } else {
+                    while (x.parent != null && (x == x.parent.right || cmp.compare(key, x.parent.item) > 0)) {
+                        x = x.parent;
+                    }
+                }
+            }
+
+            Node<T> candidate = null;
+            boolean exact = false;
+            Node<T> last = x;
+            while (x != null) {
+                last = x;
+                int c = cmp.compare(key, x.item);
+                if (c <= 0) {
+                    candidate = x;
+                    exact = c == 0;
+                    x = x.left;
+                } else {
+                    x = x.right;
+                }
+            }
+            if (candidate == null) {
+                candidate = successorOf(last);
+                exact = candidate != null && cmp.compare(key, candidate.item) == 0;
+            }
+            node = candidate;
+            return exact;
+        }
+    }
+
+    private class SortedIterator implements Iterator<T> {
+        private Node<T> next = root == null ? null : findMinNode(root);
+        private int repeat = next == null ? 0 : next.count;
+
+        @Override
+        public boolean hasNext () {
+            return next != null;
+        }
+
+        @Override
+        public T next () {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = next;
+            if (--repeat == 0) {
+                next = successorOf(node);
+                repeat = next == null ? 0 : next.count;
+            }
+            return node.item;
+        }
+    }
+
+    /**
+     * Walks {@code subtree} in order and then {@code last}. Splitting hands the left subtree and
+     * its root to a new spliterator and keeps the right subtree.
+     */
+    private class TreeSpliterator implements Spliterator<T> {
+        private Node<T> subtree;
+        private Node<T> last;
+        private ArrayDeque<Node<T>> stack;
+        private Node<T> current;
+        private int repeat;
+        private long estimate;
+
+        TreeSpliterator (Node<T> subtree, Node<T> last, long estimate) {
+            this.subtree = subtree;
+            this.last = last;
+            this.estimate = estimate;
+        }
+
+        private void pushLeft (Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance (Consumer<? super T> action) {
+            if (stack == null) {
+                stack = new ArrayDeque<>();
+                pushLeft(subtree);
+                subtree = null;
+            }
+            if (repeat > 0) {
+                --repeat;
+                action.accept(current.item);
+                return true;
+            }
+
+            Node<T> node;
+            if (!stack.isEmpty()) {
+                node = stack.pop();
+                pushLeft(node.right);
+            } else if (last != null) {
+                node = last;
+                last = null;
+            } else {
+                return false;
+            }
+
+            current = node;
+            repeat = node.count - 1;
+            action.accept(node.item);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit () {
+            Node<T> node = subtree;
+            if (stack != null || node == null || (node.left == null && node.right == null)) {
+                return null;
+            }
+
+            estimate >>>= 1;
+            subtree = node.right;
+            return new TreeSpliterator(node.left, node, estimate);
+        }
+
+        @Override
+        public long estimateSize () {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics () {
+            return ORDERED | SORTED | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator () {
+            return naturalOrder() ? null : cmp;
+        }
+    }
+
+    public static final class Split<T extends Comparable<T>> {
+        public final RBTree<T> left;
+        public final boolean found;
+        public final RBTree<T> right;
+
+        private Split (RBTree<T> left, boolean found, RBTree<T> right) {
+            this.left = left;
+            this.found = found;
+            this.right = right;
+        }
+    }
+
+    private static final class Pieces<T> {
+        Node<T> left;
+        Node<T> right;
+        boolean found;
+        int dropped;
+    }
+
+    public enum SetOperation {
+        UNION, INTERSECTION, DIFFERENCE
+    }
+
+    /**
+     * Returns a tree around {@code root} holding {@code size} keys, or an unknown number counted
+     * on demand when {@code size} is negative.
+     */
+    private RBTree<T> wrap (Node<T> root, int size) {
+        RBTree<T> tree = new RBTree<T>(cmp, multiset);
+        tree.root = root;
+        tree.nodesCount = root == null ? 0 : size;
+        return tree;
+    }
+
+    /**
+     * Number of copies held by the subtree under {@code node}.
+     */
+    private static int count (Node<?> node) {
+        int count = 0;
+        ArrayDeque<Node<?>> stack = new ArrayDeque<>();
+        if (node != null) {
+            stack.push(node);
+        }
+        while (!stack.isEmpty()) {
+            node = stack.pop();
+            count += node.count;
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Splits this tree into the keys less than and greater than {@code key}; every copy of
+     * {@code key} is dropped. A multiset splits into two multisets. This tree is left empty.
+     * Costs O(log n); the halves count their keys on the first {@link #size()}.
+     */
+    public Split<T> split (T key) {
+        Pieces<T> pieces = new Pieces<>();
+        split(root, key, pieces, cmp);
+        clear();
+        return new Split<>(wrap(pieces.left, -1), pieces.found, wrap(pieces.right, -1));
+    }
+
+    /**
+     * Joins {@code left}, {@code key} and {@code right}, where no key of {@code left} is greater
+     * than {@code key} and no key of {@code right} is less. Costs O(log n). Both trees must use the
+     * same comparator and are left empty.
+     */
+    public static <T extends Comparable<T>> RBTree<T> join (RBTree<T> left, T key, RBTree<T> right) {
+        if (left.multiset || right.multiset) {
+            throw new UnsupportedOperationException("join is not defined for multisets");
+        }
+        if (!left.cmp.equals(right.cmp)) {
+            throw new IllegalArgumentException("Trees are ordered by different comparators");
+        }
+        if ((left.root != null && left.cmp.compare(left.findMaxNode(left.root).item, key) > 0)
+                || (right.root != null && left.cmp.compare(right.findMinNode(right.root).item, key) < 0)) {
+            throw new IllegalArgumentException("Keys are not ordered left <= key <= right");
+        }
+
+        Node<T> root = join(left.root, new Node<>(key), right.root);
+        int size = left.nodesCount < 0 || right.nodesCount < 0 ? -1 : left.nodesCount + right.nodesCount + 1;
+        left.clear();
+        right.clear();
+        return left.wrap(root, size);
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> union (RBTree<T> a, RBTree<T> b) {
+        return setOperation(SetOperation.UNION, a, b, ForkJoinPool.commonPool());
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> intersection (RBTree<T> a, RBTree<T> b) {
+        return setOperation(SetOperation.INTERSECTION, a, b, ForkJoinPool.commonPool());
+    }
+
+    public static <T extends Comparable<T>> RBTree<T> difference (RBTree<T> a, RBTree<T> b) {
+        return setOperation(SetOperation.DIFFERENCE, a, b, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs {@code operation} on {@code a} and {@code b} using split and join, in O(m log(n / m + 1))
+     * work for sizes m <= n. Subtrees with a black height of at least
+     * {@link #PARALLEL_BLACK_HEIGHT} are processed in parallel on {@code pool}. The trees are
+     * treated as sets: a key found in both inputs is kept once. Both inputs must use the same
+     * comparator; they are consumed and left empty, because their nodes are reused.
+     */
+    public static <T extends Comparable<T>> RBTree<T> setOperation (SetOperation operation, RBTree<T> a, RBTree<T> b, ForkJoinPool pool) {
+        if (a.multiset || b.multiset) {
+            throw new UnsupportedOperationException(operation + " is not defined for multisets");
+        }
+        if (!a.cmp.equals(b.cmp)) {
+            throw new IllegalArgumentException("Trees are ordered by different comparators");
+        }
+        SetTask<T> task = new SetTask<>(operation, a.root, b.root, a.cmp, true);
+        Node<T> root = pool.invoke(task);
+        int size;
+        if (operation == SetOperation.INTERSECTION) {
+            size = task.matched;
+        } else if (a.nodesCount < 0 || (operation == SetOperation.UNION && b.nodesCount < 0)) {
+            size = -1;
+        } else if (operation == SetOperation.UNION) {
+            size = a.nodesCount + b.nodesCount - task.matched;
+        } else {
+            size = a.nodesCount - task.matched;
+        }
+        a.clear();
+        b.clear();
+        return a.wrap(root, size);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class SetTask<T extends Comparable<T>> extends RecursiveTask<Node<T>> {
+        private final SetOperation operation;
+        private final Node<T> first;
+        private final Node<T> second;
+        private final Comparator<? super T> cmp;
+        private final boolean parallel;
+
+        /**
+         * Pivots kept by an intersection, or nodes of the split tree that matched a pivot and were
+         * dropped by a union or difference. Set once the task completes.
+         */
+        int matched;
+
+        SetTask (SetOperation operation, Node<T> first, Node<T> second, Comparator<? super T> cmp, boolean parallel) {
+            this.operation = operation;
+            this.first = first;
+            this.second = second;
+            this.cmp = cmp;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected Node<T> compute () {
+            if (first == null) {
+                return operation == SetOperation.UNION ? second : null;
+            }
+            if (second == null) {
+                return operation == SetOperation.INTERSECTION ? null : first;
+            }
+
+            boolean fork = parallel && Math.max(blackHeight(first), blackHeight(second)) >= PARALLEL_BLACK_HEIGHT;
+            Pieces<T> pieces = new Pieces<>();
+            Node<T> pivot;
+            SetTask<T> leftTask;
+            SetTask<T> rightTask;
+            if (operation == SetOperation.DIFFERENCE) {
+                pivot = second;
+                Node<T> left = detach(pivot.left);
+                Node<T> right = detach(pivot.right);
+                split(first, pivot.item, pieces, cmp);
+                leftTask = new SetTask<>(operation, pieces.left, left, cmp, fork);
+                rightTask = new SetTask<>(operation, pieces.right, right, cmp, fork);
+            } else {
+                pivot = first;
+                Node<T> left = detach(pivot.left);
+                Node<T> right = detach(pivot.right);
+                split(second, pivot.item, pieces, cmp);
+                leftTask = new SetTask<>(operation, left, pieces.left, cmp, fork);
+                rightTask = new SetTask<>(operation, right, pieces.right, cmp, fork);
+            }
+
+            Node<T> left;
+            Node<T> right;
+            if (fork) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+
+            matched = leftTask.matched + rightTask.matched;
+            if (operation != SetOperation.INTERSECTION) {
+                matched += pieces.dropped;
+            } else if (pieces.found) {
+                matched += pivot.count;
+            }
+            if (operation == SetOperation.UNION || (operation == SetOperation.INTERSECTION && pieces.found)) {
+                return RBTree.join(left, pivot, right);
+            }
+            return RBTree.join(left, right);
+        }
+    }
+
+    private static <T> Node<T> detach (Node<T> node) {
+        if (node != null) {
+            node.parent = null;
+            node.color = BLACK;
+        }
+        return node;
+    }
+
+    private static int blackHeight (Node<?> node) {
+        int height = 0;
+        while (node != null) {
+            if (node.color == BLACK) {
+                ++height;
+            }
+            node = node.left;
+        }
+        return height;
+    }
+
+    private static <T extends Comparable<T>> void split (Node<T> node, T key, Pieces<T> pieces, Comparator<? super T> cmp) {
+        if (node == null) {
+            pieces.left = null;
+            pieces.right = null;
+            pieces.found = false;
+            pieces.dropped = 0;
+            return;
+        }
+
+        Node<T> left = detach(node.left);
+        Node<T> right = detach(node.right);
+        int c = cmp.compare(key, node.item);
+        if (c < 0) {
+            split(left, key, pieces, cmp);
+            pieces.right = join(pieces.right, node, right);
+        } else if (c > 0) {
+            split(right, key, pieces, cmp);
+            pieces.left = join(left, node, pieces.left);
+        } else {
+            Pieces<T> lower = new Pieces<>();
+            split(left, key, lower, cmp);
+            split(right, key, pieces, cmp);
+            pieces.left = lower.left;
+            pieces.found = true;
+            pieces.dropped += lower.dropped + node.count;
+        }
+    }
+
+    /**
+     * Joins two detached trees (black roots, no parents) around {@code middle}. The shorter tree
+     * is hung, under a red {@code middle}, off the spine of the taller one at the first black node
+     * of equal black height, and the insertion fix-up restores the colouring.
+     */
+    private static <T extends Comparable<T>> Node<T> join (Node<T> left, Node<T> middle, Node<T> right) {
+        int leftHeight = blackHeight(left);
+        int rightHeight = blackHeight(right);
+        middle.parent = null;
+
+        if (leftHeight == rightHeight) {
+            middle.left = left;
+            middle.right = right;
+            middle.color = BLACK;
+            if (left != null) {
+                left.parent = middle;
+            }
+            if (right != null) {
+                right.parent = middle;
+            }
+            return middle;
+        }
+
+        RBTree<T> tree = new RBTree<>();
+        Node<T> parent = null;
+        middle.color = RED;
+        if (leftHeight > rightHeight) {
+            tree.root = left;
+            Node<T> node = left;
+            int height = leftHeight;
+            while (node != null && (node.color == RED || height > rightHeight)) {
+                if (node.color == BLACK) {
+                    --height;
+                }
+                parent = node;
+                node = node.right;
+            }
+            middle.left = node;
+            middle.right = right;
+            parent.right = middle;
+        } else {
+            tree.root = right;
+            Node<T> node = right;
+            int height = rightHeight;
+            while (node != null && (node.color == RED || height > leftHeight)) {
+                if (node.color == BLACK) {
+                    --height;
+                }
+                parent = node;
+                node = node.left;
+            }
+            middle.left = left;
+            middle.right = node;
+            parent.left = middle;
+        }
+
+        middle.parent = parent;
+        if (middle.left != null) {
+            middle.left.parent = middle;
+        }
+        if (middle.right != null) {
+            middle.right.parent = middle;
+        }
+        tree.fixPropertiesAfterInsertion(middle);
+        return tree.root;
+    }
+
+    private static <T extends Comparable<T>> Node<T> join (Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+
+        RBTree<T> tree = new RBTree<>();
+        tree.root = left;
+        Node<T> last = tree.findMaxNode(left);
+        tree.deleteNode(last);
+        last.left = null;
+        last.right = null;
+        return join(detach(tree.root), last, right);
+    }
+
+    /**
+     * Prints the tree one level per line, each node with its colour.
+     */
+    public void levelOrderTraversal () {
+        ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        if (root != null) {
+            queue.add(root);
+        }
+        while (!queue.isEmpty()) {
+            for (int i = queue.size(); i > 0; --i) {
+                Node<T> node = queue.poll();
+                System.out.print(node + "   ");
+                if (node.left != null) {
+                    queue.add(node.left);
+                }
+                if (node.right != null) {
+                    queue.add(node.right);
+                }
+            }
             System.out.println();
         }
     }
 
-    private int getHeight(Node<T> root) {
+    /**
+     * Passes the keys to {@code visitor} in pre-order until it returns false, and returns whether
+     * it saw every key. Iterative; the extra memory is O(height). Traversals follow the tree's
+     * shape, so in a multiset each distinct key is passed once.
+     */
+    public boolean preOrder (Predicate<? super T> visitor) {
         if (root == null) {
-            return 0;
+            return true;
         }
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            if (!visitor.test(node.item)) {
+                return false;
+            }
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+        }
+        return true;
+    }
 
-        int leftHeight = getHeight(root.left);
-        int rightHeight = getHeight(root.right);
+    /**
+     * In-order counterpart of {@link #preOrder}.
+     */
+    public boolean inOrder (Predicate<? super T> visitor) {
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null || !stack.isEmpty()) {
+            for (; node != null; node = node.left) {
+                stack.push(node);
+            }
+            node = stack.pop();
+            if (!visitor.test(node.item)) {
+                return false;
+            }
+            node = node.right;
+        }
+        return true;
+    }
 
-        return Math.max(leftHeight, rightHeight) + 1;
+    /**
+     * Post-order counterpart of {@link #preOrder}.
+     */
+    public boolean postOrder (Predicate<? super T> visitor) {
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        Node<T> last = null;
+        while (node != null || !stack.isEmpty()) {
+            if (node != null) {
+                stack.push(node);
+                node = node.left;
+                continue;
+            }
+            Node<T> top = stack.peek();
+            if (top.right != null && top.right != last) {
+                node = top.right;
+            } else {
+                stack.pop();
+                if (!visitor.test(top.item)) {
+                    return false;
+                }
+                last = top;
+            }
+        }
+        return true;
     }
 
-    private void printLevel(Node<T> root, int level) {
+    /**
+     * Level-order counterpart of {@link #preOrder}; the extra memory is O(width).
+     */
+    public boolean levelOrder (Predicate<? super T> visitor) {
         if (root == null) {
-            return;
+            return true;
+        }
+        ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node<T> node = queue.poll();
+            if (!visitor.test(node.item)) {
+                return false;
+            }
+            if (node.left != null) {
+                queue.add(node.left);
+            }
+            if (node.right != null) {
+                queue.add(node.right);
+            }
         }
+        return true;
+    }
 
-        if (level == 1) {
-            System.out.print(root + "   ");
-        } else if (level > 1) {
-            printLevel(root.left, level - 1);
-            printLevel(root.right, level - 1);
+    /**
+     * Passes the keys one level at a time, from the root down, until {@code visitor} returns
+     * false, and returns whether it saw every level. Costs O(n) in total, with O(width) extra
+     * memory.
+     */
+    public boolean levelOrderByLevel (Predicate<? super List<T>> visitor) {
+        ArrayDeque<Node<T>> queue = new ArrayDeque<>();
+        if (root != null) {
+            queue.add(root);
+        }
+        while (!queue.isEmpty()) {
+            List<T> level = new ArrayList<>(queue.size());
+            for (int i = queue.size(); i > 0; --i) {
+                Node<T> node = queue.poll();
+                level.add(node.item);
+                if (node.left != null) {
+                    queue.add(node.left);
+                }
+                if (node.right != null) {
+                    queue.add(node.right);
+                }
+            }
+            if (!visitor.test(level)) {
+                return false;
+            }
         }
+        return true;
     }
 
 }
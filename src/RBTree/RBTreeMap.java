@@ -0,0 +1,496 @@
+package RBTree;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Sorted map on a red-black tree. Values live in the nodes, and every update (put, remove, merge, ...)
+ * finds or creates its node in a single descent; rebalancing then walks back up the parent links.
+ * Null keys and values are not supported.
+ */
+public class RBTreeMap<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+    private final Comparator<? super K> cmp;
+    private Node<K, V> root;
+    private int nodesCount;
+    private V previous;
+
+    public RBTreeMap () {
+        this(null);
+    }
+
+    /**
+     * Orders keys by {@code cmp}, or by their natural ordering when it is null.
+     */
+    public RBTreeMap (Comparator<? super K> cmp) {
+        this.cmp = cmp != null ? cmp : Comparator.naturalOrder();
+    }
+
+    private static class Node<K, V> implements Map.Entry<K, V> {
+        K key;
+        V value;
+        Node<K, V> parent;
+        Node<K, V> left;
+        Node<K, V> right;
+        boolean color;
+
+        Node () { }
+        Node (K key, V value) {
+            this.key = key;
+            this.value = value;
+            this.color = RED;
+        }
+
+        @Override
+        public K getKey () {
+            return key;
+        }
+
+        @Override
+        public V getValue () {
+            return value;
+        }
+
+        @Override
+        public V setValue (V value) {
+            V old = this.value;
+            this.value = Objects.requireNonNull(value);
+            return old;
+        }
+
+        public String toString () {
+            return key + "=" + value;
+        }
+    }
+
+    private static class Nil<K, V> extends Node<K, V> {
+        Nil () {
+            super();
+            this.color = BLACK;
+        }
+    }
+
+    public V get (K key) {
+        Node<K, V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    public V getOrDefault (K key, V defaultValue) {
+        Node<K, V> node = find(key);
+        return node == null ? defaultValue : node.value;
+    }
+
+    public boolean containsKey (K key) {
+        return find(key) != null;
+    }
+
+    private Node<K, V> find (K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int c = cmp.compare(key, node.key);
+            if (c == 0) {
+                return node;
+            }
+            node = c < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the previous value of {@code key}, or null if it was absent.
+     */
+    public V put (K key, V value) {
+        Objects.requireNonNull(value);
+        update(key, (k, old) -> value);
+        return previous;
+    }
+
+    /**
+     * Returns the current value of {@code key}, or null if it was absent and {@code value} was stored.
+     */
+    public V putIfAbsent (K key, V value) {
+        Objects.requireNonNull(value);
+        update(key, (k, old) -> old != null ? old : value);
+        return previous;
+    }
+
+    /**
+     * Returns the removed value, or null if {@code key} was absent.
+     */
+    public V remove (K key) {
+        update(key, (k, old) -> null);
+        return previous;
+    }
+
+    public V computeIfAbsent (K key, Function<? super K, ? extends V> mapping) {
+        Objects.requireNonNull(mapping);
+        return update(key, (k, old) -> old != null ? old : mapping.apply(k));
+    }
+
+    public V computeIfPresent (K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Objects.requireNonNull(remapping);
+        return update(key, (k, old) -> old != null ? remapping.apply(k, old) : null);
+    }
+
+    public V compute (K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        return update(key, Objects.requireNonNull(remapping));
+    }
+
+    public V merge (K key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remapping);
+        return update(key, (k, old) -> old != null ? remapping.apply(old, value) : value);
+    }
+
+    /**
+     * Replaces the value of {@code key} with {@code remapping(key, old)}, where old is null when the
+     * key is absent; a null result removes the key. Leaves the old value in {@link #previous} and
+     * returns the new one.
+     */
+    private V update (K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        previous = null;
+        Node<K, V> parent = null;
+        Node<K, V> node = root;
+        int c = 0;
+        while (node != null) {
+            c = cmp.compare(key, node.key);
+            if (c == 0) {
+                break;
+            }
+            parent = node;
+            node = c < 0 ? node.left : node.right;
+        }
+
+        if (node != null) {
+            previous = node.value;
+            V value = remapping.apply(key, node.value);
+            if (value != null) {
+                node.value = value;
+            } else {
+                deleteNode(node);
+                --nodesCount;
+            }
+            return value;
+        }
+
+        V value = remapping.apply(key, null);
+        if (value == null) {
+            return null;
+        }
+        Node<K, V> newNode = new Node<>(key, value);
+        if (parent == null) {
+            root = newNode;
+        } else if (c < 0) {
+            parent.left = newNode;
+        } else {
+            parent.right = newNode;
+        }
+        newNode.parent = parent;
+        ++nodesCount;
+        fixPropertiesAfterInsertion(newNode);
+        return value;
+    }
+
+    private void rotateRight (Node<K, V> node) {
+        Node<K, V> parent = node.parent;
+        Node<K, V> leftChild = node.left;
+
+        node.left = leftChild.right;
+        if (leftChild.right != null) {
+            leftChild.right.parent = node;
+        }
+
+        leftChild.right = node;
+        node.parent = leftChild;
+
+        replaceParentChild(parent, node, leftChild);
+    }
+
+    private void rotateLeft (Node<K, V> node) {
+        Node<K, V> parent = node.parent;
+        Node<K, V> rightChild = node.right;
+
+        node.right = rightChild.left;
+        if (rightChild.left != null) {
+            rightChild.left.parent = node;
+        }
+
+        rightChild.left = node;
+        node.parent = rightChild;
+
+        replaceParentChild(parent, node, rightChild);
+    }
+
+    private void replaceParentChild (Node<K, V> parent, Node<K, V> oldChild, Node<K, V> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else if (parent.right == oldChild) {
+            parent.right = newChild;
+        } else {
+            throw new IllegalStateException("replaceParentChild");
+        }
+
+        if (newChild != null) {
+            newChild.parent = parent;
+        }
+    }
+
+    private void fixPropertiesAfterInsertion (Node<K, V> node) {
+        Node<K, V> parent = node.parent;
+
+        if (parent == null) {
+            node.color = BLACK;
+            return;
+        }
+
+        if (parent.color == BLACK) {
+            return;
+        }
+
+        Node<K, V> granny = parent.parent;
+        if (granny == null) {
+            parent.color = BLACK;
+            return;
+        }
+
+        Node<K, V> uncle = granny.left == parent ? granny.right : granny.left;
+        if (uncle != null && uncle.color == RED) {
+            parent.color = BLACK;
+            uncle.color = BLACK;
+            granny.color = RED;
+            fixPropertiesAfterInsertion(granny);
+        } else if (parent == granny.left) {
+            if (node == parent.right) {
+                rotateLeft(parent);
+                parent = node;
+            }
+            rotateRight(granny);
+            parent.color = BLACK;
+            granny.color = RED;
+        } else {
+            if (node == parent.left) {
+                rotateRight(parent);
+                parent = node;
+            }
+            rotateLeft(granny);
+            parent.color = BLACK;
+            granny.color = RED;
+        }
+    }
+
+    private void deleteNode (Node<K, V> node) {
+        Node<K, V> moveUpNode;
+        boolean deletedNodeColor;
+
+        if (node.left == null || node.right == null) {
+            deletedNodeColor = node.color;
+            moveUpNode = deleteNodeWithZeroOrOneChild(node);
+        } else {
+            Node<K, V> successor = findMinNode(node.right);
+            node.key = successor.key;
+            node.value = successor.value;
+            deletedNodeColor = successor.color;
+            moveUpNode = deleteNodeWithZeroOrOneChild(successor);
+        }
+
+        if (deletedNodeColor == BLACK) {
+            fixPropertiesAfterDeletion(moveUpNode);
+            if (moveUpNode.getClass() == Nil.class) {
+                replaceParentChild(moveUpNode.parent, moveUpNode, null);
+            }
+        }
+    }
+
+    private Node<K, V> deleteNodeWithZeroOrOneChild (Node<K, V> node) {
+        if (node.left != null) {
+            replaceParentChild(node.parent, node, node.left);
+            return node.left;
+        } else if (node.right != null) {
+            replaceParentChild(node.parent, node, node.right);
+            return node.right;
+        } else {
+            Node<K, V> newChild = node.color == BLACK ? new Nil<>() : null;
+            replaceParentChild(node.parent, node, newChild);
+            return newChild;
+        }
+    }
+
+    private void fixPropertiesAfterDeletion (Node<K, V> node) {
+        if (node == root) {
+            node.color = BLACK;
+            return;
+        }
+
+        Node<K, V> sibling = getSibling(node);
+        if (sibling.color == RED) {
+            handleRedSibling(sibling);
+            sibling = getSibling(node);
+        }
+        if (isBlack(sibling.left) && isBlack(sibling.right)) {
+            sibling.color = RED;
+
+            if (node.parent.color == RED) {
+                node.parent.color = BLACK;
+            } else {
+                fixPropertiesAfterDeletion(node.parent);
+            }
+        } else {
+            handleBlackSiblingWithAtLeastOneRedChild(node, sibling);
+        }
+    }
+
+    private Node<K, V> getSibling (Node<K, V> node) {
+        Node<K, V> parent = node.parent;
+        if (node == parent.left) {
+            return parent.right;
+        }
+
+        return parent.left;
+    }
+
+    private void handleRedSibling (Node<K, V> sibling) {
+        sibling.color = BLACK;
+        sibling.parent.color = RED;
+
+        if (sibling == sibling.parent.right) {
+            rotateLeft(sibling.parent);
+        } else {
+            rotateRight(sibling.parent);
+        }
+    }
+
+    private void handleBlackSiblingWithAtLeastOneRedChild (Node<K, V> node, Node<K, V> sibling) {
+        boolean nodeIsLeftChild = node == node.parent.left;
+
+        if (nodeIsLeftChild && isBlack(sibling.right)) {
+            sibling.left.color = BLACK;
+            sibling.color = RED;
+            rotateRight(sibling);
+            sibling = node.parent.right;
+        } else if (!nodeIsLeftChild && isBlack(sibling.left)) {
+            sibling.right.color = BLACK;
+            sibling.color = RED;
+            rotateLeft(sibling);
+            sibling = node.parent.left;
+        }
+
+        sibling.color = node.parent.color;
+        node.parent.color = BLACK;
+        if (nodeIsLeftChild) {
+            sibling.right.color = BLACK;
+            rotateLeft(node.parent);
+        } else {
+            sibling.left.color = BLACK;
+            rotateRight(node.parent);
+        }
+    }
+
+    private boolean isBlack (Node<K, V> node) {
+        return node == null || node.color == BLACK;
+    }
+
+    private Node<K, V> findMinNode (Node<K, V> root) {
+        while (root.left != null) {
+            root = root.left;
+        }
+        return root;
+    }
+
+    private Node<K, V> findMaxNode (Node<K, V> root) {
+        while (root.right != null) {
+            root = root.right;
+        }
+        return root;
+    }
+
+    private Node<K, V> successorOf (Node<K, V> node) {
+        if (node.right != null) {
+            return findMinNode(node.right);
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    public K firstKey () {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return findMinNode(root).key;
+    }
+
+    public K lastKey () {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return findMaxNode(root).key;
+    }
+
+    public int size () {
+        return nodesCount;
+    }
+
+    public boolean isEmpty () {
+        return nodesCount == 0;
+    }
+
+    public void clear () {
+        root = null;
+        nodesCount = 0;
+    }
+
+    public int getTreeHeight () {
+        return getTreeHeight(root);
+    }
+
+    private int getTreeHeight (Node<K, V> node) {
+        if (node == null) {
+            return 0;
+        }
+        return Math.max(getTreeHeight(node.left), getTreeHeight(node.right)) + 1;
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator () {
+        return new Iterator<>() {
+            private Node<K, V> next = root == null ? null : findMinNode(root);
+
+            @Override
+            public boolean hasNext () {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<K, V> next () {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Node<K, V> node = next;
+                next = successorOf(node);
+                return node;
+            }
+        };
+    }
+
+    @Override
+    public String toString () {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<K, V> entry : this) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(entry);
+        }
+        return sb.append('}').toString();
+    }
+}